@@ -60,7 +60,8 @@ public interface CertService {
     public void setRootService(RootService rootService) throws CertException;
 
     /**
-     * Retrieves a KeyStore object from a supplied InputStream. Requires a keystore password.
+     * Retrieves a KeyStore object from a supplied InputStream. Requires a keystore password, or {@code null} to only
+     * read its certificates (since 10.2).
      * 
      * @param userId
      * @return
@@ -95,6 +96,15 @@ public interface CertService {
 
     public KeyStore initializeUser(UserInfo userInfo, String keyPassword) throws CertException;
 
+    /**
+     * Generates a key pair of the given type and a public certificate for a user, and stores them in a password
+     * protected keystore.
+     *
+     * @since 10.2
+     * @see #initializeUser(UserInfo, String)
+     */
+    public KeyStore initializeUser(UserInfo userInfo, String keyPassword, KeyType keyType) throws CertException;
+
     /**
      * Wraps a certificate object into an OutputStream object secured by a keystore password
      * 
@@ -114,4 +124,12 @@ public interface CertService {
      */
     public String getCertificateEmail(X509Certificate certificate) throws CertException;
 
+    /**
+     * Computes the SHA-256 fingerprint of the DER encoding of a certificate.
+     *
+     * @return the lowercase hexadecimal fingerprint
+     * @since 10.2
+     */
+    public String getCertificateFingerprint(X509Certificate certificate) throws CertException;
+
 }
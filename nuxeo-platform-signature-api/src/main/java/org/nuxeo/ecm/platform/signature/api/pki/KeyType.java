@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.api.pki;
+
+import org.nuxeo.ecm.platform.signature.api.exception.CertException;
+
+/**
+ * Type of the key pair generated for a user certificate, with the algorithm signing its certificate.
+ *
+ * @since 10.2
+ */
+public enum KeyType {
+
+    RSA_1024("RSA-1024", "RSA", 1024, null),
+
+    RSA_2048("RSA-2048", "RSA", 2048, null),
+
+    RSA_3072("RSA-3072", "RSA", 3072, null),
+
+    /** ECDSA on the NIST P-256 curve. */
+    EC_P256("EC-P256", "EC", 0, "secp256r1"),
+
+    ED25519("Ed25519", "Ed25519", 0, null);
+
+    /** The type of keys generated when none is configured. */
+    public static final KeyType DEFAULT = RSA_1024;
+
+    protected final String id;
+
+    protected final String keyAlgorithm;
+
+    protected final int keySize;
+
+    protected final String curve;
+
+    KeyType(String id, String keyAlgorithm, int keySize, String curve) {
+        this.id = id;
+        this.keyAlgorithm = keyAlgorithm;
+        this.keySize = keySize;
+        this.curve = curve;
+    }
+
+    /**
+     * Gets the identifier used in the configuration, for instance {@code EC-P256}.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the JCA name of the key algorithm.
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * Gets the key size in bits, or {@code 0} if it is implied by the algorithm or curve.
+     */
+    public int getKeySize() {
+        return keySize;
+    }
+
+    /**
+     * Gets the name of the elliptic curve, or {@code null} if not applicable.
+     */
+    public String getCurve() {
+        return curve;
+    }
+
+    /**
+     * Gets the JCA name of the algorithm signing the certificate of the key.
+     */
+    public String getCertificateSignatureAlgorithm() {
+        return getCertificateSignatureAlgorithm(keyAlgorithm);
+    }
+
+    /**
+     * Gets the JCA name of the algorithm signing a certificate with a key of the given algorithm, whatever its size or
+     * curve. The same algorithm signs the CMS signatures of PDFs.
+     *
+     * @param keyAlgorithm the JCA name of the key algorithm, as returned by {@link java.security.Key#getAlgorithm}
+     */
+    public static String getCertificateSignatureAlgorithm(String keyAlgorithm) throws CertException {
+        switch (keyAlgorithm) {
+        case "RSA":
+            return "SHA256WithRSAEncryption";
+        case "EC":
+        case "ECDSA":
+            return "SHA256withECDSA";
+        case "Ed25519":
+        case "EdDSA":
+        case "1.3.101.112": // providers without EdDSA support name the key by its OID
+            return "Ed25519";
+        default:
+            throw new CertException("Unsupported key algorithm: " + keyAlgorithm);
+        }
+    }
+
+    /**
+     * Gets the key type with the given configuration identifier.
+     */
+    public static KeyType fromId(String id) throws CertException {
+        for (KeyType keyType : values()) {
+            if (keyType.id.equalsIgnoreCase(id)) {
+                return keyType;
+            }
+        }
+        throw new CertException("Unknown key type: " + id);
+    }
+
+}
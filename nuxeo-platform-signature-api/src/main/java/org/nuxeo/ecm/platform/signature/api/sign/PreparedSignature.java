@@ -0,0 +1,70 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.api.sign;
+
+/**
+ * Handle on a PDF prepared for signature: its signature dictionary is written with room reserved for the signature,
+ * and the byte ranges to be signed have been digested.
+ * <p>
+ * The digest must be signed as a detached CMS signature whose signed attributes contain it as message digest, then
+ * given back to {@link SignatureService#completeSignature}.
+ *
+ * @since 10.2
+ */
+public class PreparedSignature {
+
+    protected final String id;
+
+    protected final byte[] digest;
+
+    protected final String digestAlgorithm;
+
+    public PreparedSignature(String id, byte[] digest, String digestAlgorithm) {
+        this.id = id;
+        this.digest = digest;
+        this.digestAlgorithm = digestAlgorithm;
+    }
+
+    /**
+     * Gets the identifier of the prepared signature in the signature service.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the digest of the signed byte ranges of the PDF.
+     */
+    public byte[] getDigest() {
+        return digest.clone();
+    }
+
+    /**
+     * Gets the algorithm of the digest, for instance {@code SHA-256}.
+     */
+    public String getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(id=" + id + ",digestAlgorithm=" + digestAlgorithm + ")";
+    }
+
+}
@@ -19,13 +19,16 @@
  */
 package org.nuxeo.ecm.platform.signature.api.sign;
 
+import java.security.KeyStore.PrivateKeyEntry;
 import java.security.cert.X509Certificate;
+import java.util.Calendar;
 import java.util.List;
 
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.convert.api.ConversionException;
+import org.nuxeo.ecm.platform.signature.api.exception.CertException;
 import org.nuxeo.ecm.platform.signature.api.exception.SignException;
 
 /**
@@ -106,6 +109,192 @@ public interface SignatureService {
         }
     }
 
+    /**
+     * The outcome of signing one document of a batch.
+     *
+     * @since 10.2
+     */
+    public class SignatureResult {
+
+        public final DocumentModel doc;
+
+        /**
+         * The signed blob, or {@code null} if signing failed or the document has nothing to sign.
+         */
+        public final Blob blob;
+
+        /**
+         * The reason why signing failed, or {@code null} on success.
+         */
+        public final SignException exception;
+
+        public SignatureResult(DocumentModel doc, Blob blob, SignException exception) {
+            this.doc = doc;
+            this.blob = blob;
+            this.exception = exception;
+        }
+
+        public DocumentModel getDoc() {
+            return doc;
+        }
+
+        public Blob getBlob() {
+            return blob;
+        }
+
+        public SignException getException() {
+            return exception;
+        }
+
+        public boolean isSuccess() {
+            return exception == null;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "(doc=" + doc + ",blob=" + blob + ",exception=" + exception + ")";
+        }
+    }
+
+    /**
+     * The outcome of the verification of one signature of a PDF.
+     *
+     * @since 10.2
+     */
+    public class SignatureVerification {
+
+        /** The name of the signature field. */
+        public final String name;
+
+        /** Whether the signature matches the signed revision of the PDF. */
+        public final boolean valid;
+
+        /** The signing certificate, or {@code null} if the signature cannot be decoded. */
+        public final X509Certificate certificate;
+
+        /** The signing time declared by the signer, or {@code null}. */
+        public final Calendar signDate;
+
+        /** Whether the signature covers the whole document, {@code false} if it was modified after signing. */
+        public final boolean coversWholeDocument;
+
+        /** The revision of the PDF signed by this signature, starting at 1. */
+        public final int revision;
+
+        /** The reason why the signature could not be verified, or {@code null}. */
+        public final String error;
+
+        public SignatureVerification(String name, boolean valid, X509Certificate certificate, Calendar signDate,
+                boolean coversWholeDocument, int revision, String error) {
+            this.name = name;
+            this.valid = valid;
+            this.certificate = certificate;
+            this.signDate = signDate;
+            this.coversWholeDocument = coversWholeDocument;
+            this.revision = revision;
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public X509Certificate getCertificate() {
+            return certificate;
+        }
+
+        public Calendar getSignDate() {
+            return signDate;
+        }
+
+        public boolean isCoversWholeDocument() {
+            return coversWholeDocument;
+        }
+
+        public int getRevision() {
+            return revision;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "(name=" + name + ",valid=" + valid + ",revision=" + revision
+                    + ",coversWholeDocument=" + coversWholeDocument + ",error=" + error + ")";
+        }
+    }
+
+    /**
+     * The progress of an asynchronous signature.
+     *
+     * @since 10.2
+     */
+    public class AsyncSigningStatus {
+
+        public enum State {
+            /** Waiting in the signature work queue. */
+            SCHEDULED,
+            /** Being converted and signed. */
+            RUNNING,
+            /** Signed and saved. */
+            SIGNED,
+            /** Signing failed, see the message. */
+            FAILED,
+            /** Unknown signing id, or outcome already expired. */
+            UNKNOWN
+        }
+
+        public final State state;
+
+        /**
+         * The failure message, or {@code null}.
+         */
+        public final String message;
+
+        /**
+         * The user who requested the signature, or {@code null} if unknown.
+         */
+        public final String username;
+
+        public AsyncSigningStatus(State state, String message) {
+            this(state, message, null);
+        }
+
+        public AsyncSigningStatus(State state, String message, String username) {
+            this.state = state;
+            this.message = message;
+            this.username = username;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public boolean isDone() {
+            return state == State.SIGNED || state == State.FAILED;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "(state=" + state + ",message=" + message + ",username="
+                    + username + ")";
+        }
+    }
+
     /**
      * Finds the signing status for the document.
      * <p>
@@ -146,6 +335,71 @@ public interface SignatureService {
     Blob signDocument(DocumentModel doc, DocumentModel user, String userKeyPassword, String reason, boolean pdfa,
             SigningDisposition disposition, String archiveFilename);
 
+    /**
+     * Signs several documents with a user certificate (converting them into PDFs first if needed).
+     * <p>
+     * The user keystore is unlocked and the signature configuration resolved only once for the whole batch. A document
+     * that cannot be signed does not abort the batch, its failure is reported in its result.
+     * <p>
+     * The documents may be signed concurrently, each one by a single thread.
+     * <p>
+     * Does not save the modified documents.
+     *
+     * @param docs the documents to sign
+     * @param user the signing user
+     * @param userKeyPassword the password for the user's signing certificate
+     * @param reason the signing reason
+     * @param pdfa {@code true} if the generated PDFs should be PDF/A-1b
+     * @param disposition the signing disposition
+     * @return the results, in the order of the documents
+     * @throws CertException if the user certificate cannot be unlocked
+     * @since 10.2
+     */
+    List<SignatureResult> signDocuments(List<DocumentModel> docs, DocumentModel user, String userKeyPassword,
+            String reason, boolean pdfa, SigningDisposition disposition);
+
+    /**
+     * Verifies all the signatures of a PDF.
+     * <p>
+     * Each signature covers its own revision of the PDF, so the signatures are verified concurrently.
+     *
+     * @param pdfBlob the blob containing the PDF
+     * @return the verification of each signature, in the order of the signature fields
+     * @since 10.2
+     */
+    List<SignatureVerification> verifySignatures(Blob pdfBlob);
+
+    /**
+     * Schedules the signature of a document, which is converted, signed and saved in the background on the signature
+     * work queue.
+     * <p>
+     * The key password only lives in memory until the signature runs: if the work queue persists its works, the
+     * signature fails.
+     *
+     * @param doc the document to sign, which must be saved
+     * @param user the signing user
+     * @param userKeyPassword the password for the user's signing certificate
+     * @param reason the signing reason
+     * @param pdfa {@code true} if the generated PDF should be a PDF/A-1b
+     * @param disposition the signing disposition
+     * @param archiveFilename if archiving, the filename to use for the archived original file
+     * @return the signing id, to be passed to {@link #getAsyncSigningStatus}
+     * @since 10.2
+     */
+    String signDocumentAsync(DocumentModel doc, DocumentModel user, String userKeyPassword, String reason,
+            boolean pdfa, SigningDisposition disposition, String archiveFilename);
+
+    /**
+     * Gets the progress of a signature scheduled by {@link #signDocumentAsync}.
+     * <p>
+     * Outcomes are kept for a limited time after the signature ends.
+     *
+     * @param signingId the signing id
+     * @return the status, never {@code null}
+     * @since 10.2
+     */
+    AsyncSigningStatus getAsyncSigningStatus(String signingId);
+
     /**
      * Signs a PDF document with a user certificate. Requires a password to retrieve the certificate from the user
      * keystore.
@@ -160,6 +414,54 @@ public interface SignatureService {
      */
     Blob signPDF(Blob pdfBlob, DocumentModel doc, DocumentModel user, String userKeyPassword, String reason) throws SignException;
 
+    /**
+     * Prepares a PDF for a signature to be computed outside of this service.
+     * <p>
+     * The signature dictionary and its appearance are added with room reserved for the signature, and the signed byte
+     * ranges are digested. The returned handle must be passed to {@link #completeSignature} or
+     * {@link #cancelSignature}; handles that are not completed in time are discarded.
+     *
+     * @param pdfBlob the blob containing the PDF to sign
+     * @param doc the document being signed, may be {@code null}
+     * @param user the signing user
+     * @param certificate the certificate of the signing user
+     * @param reason the signing reason
+     * @return the prepared signature, holding the digest to sign
+     * @since 10.2
+     */
+    PreparedSignature prepareSignature(Blob pdfBlob, DocumentModel doc, DocumentModel user,
+            X509Certificate certificate, String reason);
+
+    /**
+     * Completes a prepared signature with an externally computed signature.
+     *
+     * @param preparedSignature the prepared signature
+     * @param signature the DER-encoded detached CMS signature of the prepared digest
+     * @return a blob containing the signed PDF
+     * @since 10.2
+     */
+    Blob completeSignature(PreparedSignature preparedSignature, byte[] signature);
+
+    /**
+     * Completes a prepared signature by signing its digest with an already unlocked key.
+     * <p>
+     * Many prepared signatures can be completed with a single key unlock, see
+     * {@link org.nuxeo.ecm.platform.signature.api.user.CUserService#getUserCredential}.
+     *
+     * @param preparedSignature the prepared signature
+     * @param credential the private key and certificate of the signing user
+     * @return a blob containing the signed PDF
+     * @since 10.2
+     */
+    Blob completeSignature(PreparedSignature preparedSignature, PrivateKeyEntry credential);
+
+    /**
+     * Discards a prepared signature that will not be completed.
+     *
+     * @since 10.2
+     */
+    void cancelSignature(PreparedSignature preparedSignature);
+
     /**
      * Returns a list of certificates associated with a given document.
      *
@@ -19,6 +19,8 @@
 package org.nuxeo.ecm.platform.signature.api.user;
 
 import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.List;
 
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.platform.signature.api.exception.CertException;
@@ -40,6 +42,76 @@ public interface CUserService {
      */
     public DocumentModel createCertificate(DocumentModel user, String userKeyPassword) throws CertException;
 
+    /**
+     * Outcome of the creation of the certificate of a user in a bulk provisioning.
+     *
+     * @since 10.2
+     */
+    public class CertificateResult {
+
+        public final String userID;
+
+        /**
+         * The created certificate directory entry, or {@code null} if the creation failed.
+         */
+        public final DocumentModel certificate;
+
+        /**
+         * The reason why the creation failed, or {@code null} on success.
+         */
+        public final CertException exception;
+
+        public CertificateResult(String userID, DocumentModel certificate, CertException exception) {
+            this.userID = userID;
+            this.certificate = certificate;
+            this.exception = exception;
+        }
+
+        public String getUserID() {
+            return userID;
+        }
+
+        public DocumentModel getCertificate() {
+            return certificate;
+        }
+
+        public CertException getException() {
+            return exception;
+        }
+
+        public boolean isSuccess() {
+            return exception == null;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "(userID=" + userID + ",exception=" + exception + ")";
+        }
+    }
+
+    /**
+     * Generates the certificates and keys of several users, and persists their stores in the directory.
+     * <p>
+     * Keys are generated in parallel, and directory entries are written in batches, each committed in its own
+     * transaction. The failure of a user, for instance because it already has a certificate, does not abort the others.
+     *
+     * @param users the users
+     * @param userKeyPassword the initial key password of all the users
+     * @return the outcome for each user, in the order of the users
+     * @since 10.2
+     */
+    public List<CertificateResult> createCertificates(List<DocumentModel> users, String userKeyPassword)
+            throws CertException;
+
+    /**
+     * Generates the certificates and keys of the members of a group and of its subgroups.
+     *
+     * @see #createCertificates(List, String)
+     * @since 10.2
+     */
+    public List<CertificateResult> createGroupCertificates(String groupName, String userKeyPassword)
+            throws CertException;
+
     /**
      * Retrieves a UserInfo object containing information needed for certificate generation.
      *
@@ -67,6 +139,43 @@ public interface CUserService {
      */
     public KeyStore getUserKeystore(String userID, String userKeyPassword) throws CertException;
 
+    /**
+     * Migrates the certificate entries created before 10.2: keystores stored base64-encoded in a string are moved to
+     * binary storage, and the public certificate and its fingerprint are stored.
+     * <p>
+     * Keystores are also migrated one by one when first unlocked, this migrates the ones never unlocked. Until it is
+     * stored, the public certificate is read from the keystore on each lookup.
+     *
+     * @return the number of migrated entries
+     * @since 10.2
+     */
+    public int migrateKeystores() throws CertException;
+
+    /**
+     * Retrieves the unlocked private key and certificate of a user.
+     * <p>
+     * If the credential cache is enabled, the unlocked key is kept in memory for a while so that successive signatures
+     * by the same user do not reload and decrypt the keystore.
+     *
+     * @param userID
+     * @param userKeyPassword
+     * @return the private key entry, whose first certificate is the user certificate
+     * @throws CertException if the user has no certificate or the password is incorrect
+     * @since 10.2
+     */
+    public KeyStore.PrivateKeyEntry getUserCredential(String userID, String userKeyPassword) throws CertException;
+
+    /**
+     * Retrieves the public certificate of a user, without unlocking the user keystore.
+     * <p>
+     * Certificates, and the absence of certificate, are kept in memory once retrieved.
+     *
+     * @param userID
+     * @return the certificate, or {@code null} if the user has no certificate
+     * @since 10.2
+     */
+    public X509Certificate getPublicCertificate(String userID) throws CertException;
+
     /**
      * Retrieves a user certificate from the directory.
      *
@@ -0,0 +1,174 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v1CertificateBuilder;
+import org.bouncycastle.operator.OperatorException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.platform.signature.api.user.AliasType;
+import org.nuxeo.ecm.platform.signature.api.user.AliasWrapper;
+import org.nuxeo.ecm.platform.signature.api.user.CNField;
+import org.nuxeo.ecm.platform.signature.api.user.UserInfo;
+import org.nuxeo.ecm.platform.signature.core.pki.CertServiceImpl;
+import org.nuxeo.ecm.platform.signature.core.sign.SigningCredentials;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfWriter;
+
+/**
+ * Generated certificates, keystores and PDFs for the benchmarks, no file or repository is needed.
+ *
+ * @since 10.2
+ */
+public class BenchmarkFixtures {
+
+    public static final String PASSWORD = "benchmark";
+
+    public static final String REASON = "Benchmark";
+
+    protected static final String ROOT_DN = "CN=Benchmark Root, O=Nuxeo, C=US";
+
+    protected static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod "
+            + "tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation.";
+
+    protected final CertServiceImpl certService;
+
+    public BenchmarkFixtures() throws GeneralSecurityException, OperatorException {
+        certService = new BenchmarkCertService(createRootCertificate());
+    }
+
+    public CertServiceImpl getCertService() {
+        return certService;
+    }
+
+    protected static X509Certificate createRootCertificate() throws GeneralSecurityException, OperatorException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        X500Principal dn = new X500Principal(ROOT_DN);
+        Date now = new Date();
+        JcaX509v1CertificateBuilder builder = new JcaX509v1CertificateBuilder(dn, BigInteger.ONE, now,
+                new Date(now.getTime() + 365L * 24 * 3600 * 1000), dn, keyPair.getPublic());
+        return new JcaX509CertificateConverter().getCertificate(
+                builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+    }
+
+    public static String getUserID(int i) {
+        return "user" + i;
+    }
+
+    public static String getEmail(int i) {
+        return getUserID(i) + "@example.com";
+    }
+
+    public UserInfo getUserInfo(int i) {
+        Map<CNField, String> fields = new EnumMap<>(CNField.class);
+        fields.put(CNField.C, "US");
+        fields.put(CNField.O, "Nuxeo");
+        fields.put(CNField.OU, "Benchmarks");
+        fields.put(CNField.CN, "User " + i);
+        fields.put(CNField.Email, getEmail(i));
+        fields.put(CNField.UserID, getUserID(i));
+        return new UserInfo(fields);
+    }
+
+    /**
+     * Creates the keystore of a user, serialized as it is stored in the certificate directory.
+     */
+    public byte[] createKeystore(int i) {
+        KeyStore keystore = certService.initializeUser(getUserInfo(i), PASSWORD);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        certService.storeCertificate(keystore, out, PASSWORD);
+        return out.toByteArray();
+    }
+
+    /**
+     * Unlocks a user keystore, like the user service does for each signature.
+     */
+    public SigningCredentials unlock(String userID, KeyStore keystore) {
+        AliasWrapper alias = new AliasWrapper(userID);
+        KeyPair keyPair = certService.getKeyPair(keystore, alias.getId(AliasType.KEY), alias.getId(AliasType.CERT),
+                PASSWORD);
+        X509Certificate certificate = certService.getCertificate(keystore, alias.getId(AliasType.CERT));
+        return new SigningCredentials(userID, certificate, keyPair);
+    }
+
+    public SigningCredentials createCredentials(int i) {
+        String userID = getUserID(i);
+        return unlock(userID, certService.initializeUser(getUserInfo(i), PASSWORD));
+    }
+
+    /**
+     * Creates a PDF of text pages.
+     */
+    public Blob createPDF(int pages) throws IOException, DocumentException {
+        File file = File.createTempFile("benchmark-", ".pdf");
+        file.deleteOnExit();
+        Document document = new Document(PageSize.A4);
+        try (OutputStream out = new FileOutputStream(file)) {
+            PdfWriter.getInstance(document, out);
+            document.open();
+            for (int page = 1; page <= pages; page++) {
+                if (page > 1) {
+                    document.newPage();
+                }
+                document.add(new Paragraph("Page " + page));
+                for (int i = 0; i < 20; i++) {
+                    document.add(new Paragraph(LOREM));
+                }
+            }
+            document.close();
+        }
+        return Blobs.createBlob(file, "application/pdf");
+    }
+
+    /**
+     * Certificate service with a fixed root certificate instead of the root service.
+     */
+    protected static class BenchmarkCertService extends CertServiceImpl {
+
+        protected BenchmarkCertService(X509Certificate rootCertificate) {
+            this.rootCertificate = rootCertificate;
+        }
+    }
+
+}
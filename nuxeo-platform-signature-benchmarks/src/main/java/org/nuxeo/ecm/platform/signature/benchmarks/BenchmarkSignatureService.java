@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.benchmarks;
+
+import static org.nuxeo.ecm.platform.signature.api.sign.SignatureService.StatusWithBlob.UNSIGNED;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.platform.signature.api.pki.CertService;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureAppearanceFactory;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureLayout;
+import org.nuxeo.ecm.platform.signature.core.sign.DefaultSignatureAppearanceFactory;
+import org.nuxeo.ecm.platform.signature.core.sign.PDFContext;
+import org.nuxeo.ecm.platform.signature.core.sign.SignatureMetadata;
+import org.nuxeo.ecm.platform.signature.core.sign.SignatureServiceImpl;
+import org.nuxeo.ecm.platform.signature.core.sign.SigningCredentials;
+
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Signature service usable without a Nuxeo runtime: services are given explicitly, output files are plain temporary
+ * files and the metadata and conversion caches are disabled so that every call does the actual work.
+ *
+ * @since 10.2
+ */
+public class BenchmarkSignatureService extends SignatureServiceImpl {
+
+    protected final CertService certService;
+
+    protected final SignatureAppearanceFactory appearanceFactory = new BenchmarkAppearanceFactory();
+
+    /** Public certificates of the users, as stored in the certificate directory. */
+    protected final Map<String, X509Certificate> publicCertificates = new ConcurrentHashMap<>();
+
+    public BenchmarkSignatureService(CertService certService) {
+        this.certService = certService;
+        // activate() is not called without a runtime, the caches are set up here
+        metadataCache = CacheBuilder.newBuilder().maximumSize(0).build();
+        conversionCache = null;
+    }
+
+    @Override
+    protected CertService getCertService() {
+        return certService;
+    }
+
+    @Override
+    protected X509Certificate getPublicCertificate(String userID) {
+        return publicCertificates.get(userID);
+    }
+
+    @Override
+    protected Blob createOutputBlob() throws IOException {
+        return Blobs.createBlob(File.createTempFile("signed-", ".pdf"), MIME_TYPE_PDF);
+    }
+
+    /**
+     * Registers the certificate of a user, like the user service does when creating it.
+     */
+    public void addUser(SigningCredentials credentials) {
+        publicCertificates.put(credentials.getUserID(), credentials.getCertificate());
+    }
+
+    /**
+     * Parses the PDF and gets the signatures already present.
+     */
+    public SignatureMetadata readMetadata(PDFContext context) {
+        return getSignatureMetadata(context);
+    }
+
+    /**
+     * Gets the signing status of the PDF for the given user.
+     */
+    public int getSigningStatus(Blob pdfBlob, String userID, String email) {
+        try (PDFContext context = new PDFContext(pdfBlob)) {
+            SignatureMetadata metadata = getSignatureMetadata(context);
+            if (metadata.getSignatureCount() == 0) {
+                return UNSIGNED;
+            }
+            return getSigningStatus(metadata, userID, email);
+        }
+    }
+
+    public Blob sign(Blob pdfBlob, SigningCredentials credentials, String reason) {
+        try (PDFContext context = new PDFContext(pdfBlob)) {
+            return signPDF(context, null, credentials, reason, appearanceFactory);
+        }
+    }
+
+    /**
+     * Default appearance factory, getting the layout from this service instead of looking it up.
+     */
+    protected class BenchmarkAppearanceFactory extends DefaultSignatureAppearanceFactory {
+
+        @Override
+        protected SignatureLayout getSignatureLayout() {
+            return BenchmarkSignatureService.this.getSignatureLayout();
+        }
+    }
+
+}
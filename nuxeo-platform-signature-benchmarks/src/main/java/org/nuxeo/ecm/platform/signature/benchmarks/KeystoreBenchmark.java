@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+import org.nuxeo.ecm.platform.signature.core.sign.SigningCredentials;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the user keystore operations: certificate creation and unlock before each signature.
+ *
+ * @since 10.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeystoreBenchmark {
+
+    protected BenchmarkFixtures fixtures;
+
+    protected byte[] keystore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixtures = new BenchmarkFixtures();
+        keystore = fixtures.createKeystore(0);
+    }
+
+    /**
+     * Generates the key pair and certificate of a new user.
+     */
+    @Benchmark
+    public KeyStore initializeUser() {
+        return fixtures.getCertService().initializeUser(fixtures.getUserInfo(0), BenchmarkFixtures.PASSWORD);
+    }
+
+    /**
+     * Loads a stored keystore and extracts the key and certificate.
+     */
+    @Benchmark
+    public SigningCredentials unlock() {
+        KeyStore ks = fixtures.getCertService().getKeyStore(new ByteArrayInputStream(keystore),
+                BenchmarkFixtures.PASSWORD);
+        return fixtures.unlock(BenchmarkFixtures.getUserID(0), ks);
+    }
+
+}
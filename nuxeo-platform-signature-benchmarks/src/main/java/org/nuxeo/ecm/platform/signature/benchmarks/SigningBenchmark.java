@@ -0,0 +1,153 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.platform.signature.core.sign.PDFContext;
+import org.nuxeo.ecm.platform.signature.core.sign.SignatureMetadata;
+import org.nuxeo.ecm.platform.signature.core.sign.SigningCredentials;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the PDF signing path, by document size and number of signatures already present.
+ *
+ * @since 10.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningBenchmark {
+
+    @Param({ "1", "50", "500" })
+    public int pages;
+
+    @Param({ "0", "5", "30" })
+    public int signatures;
+
+    protected BenchmarkFixtures fixtures;
+
+    protected BenchmarkSignatureService service;
+
+    protected Blob pdf;
+
+    /** The user signing in the benchmarks, not among the existing signers. */
+    protected SigningCredentials signer;
+
+    protected String signerID;
+
+    protected byte[] signerKeystore;
+
+    protected Blob signed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixtures = new BenchmarkFixtures();
+        service = new BenchmarkSignatureService(fixtures.getCertService());
+        pdf = fixtures.createPDF(pages);
+        for (int i = 1; i <= signatures; i++) {
+            Blob next = service.sign(pdf, fixtures.createCredentials(i), BenchmarkFixtures.REASON);
+            next.getFile().deleteOnExit();
+            pdf = next;
+        }
+        signerID = BenchmarkFixtures.getUserID(0);
+        signerKeystore = fixtures.createKeystore(0);
+        signer = fixtures.unlock(signerID, loadKeystore());
+        service.addUser(signer);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteSigned() {
+        if (signed != null) {
+            signed.getFile().delete();
+            signed = null;
+        }
+    }
+
+    protected KeyStore loadKeystore() {
+        return fixtures.getCertService().getKeyStore(new ByteArrayInputStream(signerKeystore),
+                BenchmarkFixtures.PASSWORD);
+    }
+
+    /**
+     * Opens the PDF and reads its cross-reference table and signature fields.
+     */
+    @Benchmark
+    public int parse() {
+        try (PDFContext context = new PDFContext(pdf)) {
+            return context.getReader().getAcroFields().getSignatureNames().size();
+        }
+    }
+
+    /**
+     * Gets the signing status of the PDF for a user who did not sign it, matching both the certificate and the email.
+     */
+    @Benchmark
+    public int status() {
+        return service.getSigningStatus(pdf, signerID, BenchmarkFixtures.getEmail(0));
+    }
+
+    /**
+     * Reads the signatures and their certificates.
+     */
+    @Benchmark
+    public SignatureMetadata certificates() {
+        try (PDFContext context = new PDFContext(pdf)) {
+            return service.readMetadata(context);
+        }
+    }
+
+    /**
+     * Adds a signature with an already unlocked key.
+     */
+    @Benchmark
+    public Blob stamp() {
+        signed = service.sign(pdf, signer, BenchmarkFixtures.REASON);
+        return signed;
+    }
+
+    /**
+     * Unlocks the stored keystore then adds a signature.
+     */
+    @Benchmark
+    public Blob endToEnd() {
+        SigningCredentials credentials = fixtures.unlock(signerID, loadKeystore());
+        signed = service.sign(pdf, credentials, BenchmarkFixtures.REASON);
+        return signed;
+    }
+
+}
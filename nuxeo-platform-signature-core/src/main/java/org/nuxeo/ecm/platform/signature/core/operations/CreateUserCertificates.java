@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.operations;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.nuxeo.ecm.automation.OperationContext;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.Context;
+import org.nuxeo.ecm.automation.core.annotations.Operation;
+import org.nuxeo.ecm.automation.core.annotations.OperationMethod;
+import org.nuxeo.ecm.automation.core.annotations.Param;
+import org.nuxeo.ecm.automation.core.util.StringList;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.NuxeoPrincipal;
+import org.nuxeo.ecm.platform.signature.api.exception.CertException;
+import org.nuxeo.ecm.platform.signature.api.user.CUserService;
+import org.nuxeo.ecm.platform.signature.api.user.CUserService.CertificateResult;
+import org.nuxeo.ecm.platform.usermanager.UserManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Creates the certificates of a list of users, or of the members of a group.
+ *
+ * @since 10.2
+ */
+@Operation(id = CreateUserCertificates.ID, category = Constants.CAT_SERVICES, label = "Create User Certificates", description = "Creates"
+        + " the certificates of the given users, or of the members of the given group, and returns a JSON array with,"
+        + " for each user: userID, success and error.")
+public class CreateUserCertificates {
+
+    public static final String ID = "Services.CreateUserCertificates";
+
+    @Context
+    protected OperationContext ctx;
+
+    @Context
+    protected UserManager userManager;
+
+    @Context
+    protected CUserService cUserService;
+
+    @Param(name = "users", required = false, description = "The user IDs.")
+    protected StringList users;
+
+    @Param(name = "group", required = false, description = "The group whose members get a certificate.")
+    protected String group;
+
+    @Param(name = "password", required = true, description = "Initial certificate password of the users.")
+    protected String password;
+
+    @OperationMethod
+    public Blob run() throws OperationException {
+        if (!(ctx.getPrincipal() instanceof NuxeoPrincipal)
+                || !((NuxeoPrincipal) ctx.getPrincipal()).isAdministrator()) {
+            throw new OperationException("Not allowed. You must be administrator to use this operation");
+        }
+        if ((users == null) == (group == null)) {
+            throw new OperationException("Exactly one of the users or group parameters is required");
+        }
+        List<CertificateResult> results;
+        if (group != null) {
+            results = cUserService.createGroupCertificates(group, password);
+        } else {
+            List<DocumentModel> userModels = new ArrayList<>(users.size());
+            List<DocumentModel> found = new ArrayList<>(users.size());
+            for (String userID : users) {
+                DocumentModel user = userManager.getUserModel(userID);
+                userModels.add(user);
+                if (user != null) {
+                    found.add(user);
+                }
+            }
+            // the results follow the order of the given users, unknown ones included
+            Iterator<CertificateResult> created = cUserService.createCertificates(found, password).iterator();
+            results = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                if (userModels.get(i) == null) {
+                    String userID = users.get(i);
+                    results.add(new CertificateResult(userID, null, new CertException("No user " + userID)));
+                } else {
+                    results.add(created.next());
+                }
+            }
+        }
+        return toJSON(results);
+    }
+
+    protected Blob toJSON(List<CertificateResult> results) {
+        ArrayNode json = new ObjectMapper().createArrayNode();
+        for (CertificateResult result : results) {
+            ObjectNode node = json.addObject();
+            node.put("userID", result.getUserID());
+            node.put("success", result.isSuccess());
+            node.put("error", result.isSuccess() ? null : result.getException().getMessage());
+        }
+        return Blobs.createJSONBlob(json.toString());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.operations;
+
+import org.nuxeo.ecm.automation.OperationContext;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.Context;
+import org.nuxeo.ecm.automation.core.annotations.Operation;
+import org.nuxeo.ecm.automation.core.annotations.OperationMethod;
+import org.nuxeo.ecm.automation.core.annotations.Param;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.NuxeoPrincipal;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.AsyncSigningStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Gets the progress of a signature scheduled by {@link SignPDFDocumentAsync}.
+ * <p>
+ * Only the user who scheduled the signature or an administrator can read its status.
+ *
+ * @since 10.2
+ */
+@Operation(id = GetSigningStatus.ID, category = Constants.CAT_SERVICES, label = "Get Signing Status", description = "Returns"
+        + " a JSON blob with the state (SCHEDULED, RUNNING, SIGNED, FAILED or UNKNOWN) and failure message of an"
+        + " asynchronous signature.")
+public class GetSigningStatus {
+
+    public static final String ID = "Services.GetSigningStatus";
+
+    @Context
+    protected OperationContext ctx;
+
+    @Context
+    protected SignatureService signatureService;
+
+    @Param(name = "signingId", required = true, description = "The signing id.")
+    protected String signingId;
+
+    @OperationMethod
+    public Blob run() throws OperationException {
+        AsyncSigningStatus status = signatureService.getAsyncSigningStatus(signingId);
+        if (status.getState() != AsyncSigningStatus.State.UNKNOWN && !isAllowed(status)) {
+            throw new OperationException("Not allowed. You must have requested the signature or be administrator"
+                    + " to use this operation");
+        }
+        ObjectNode json = new ObjectMapper().createObjectNode();
+        json.put("signingId", signingId);
+        json.put("state", status.getState().name());
+        json.put("done", status.isDone());
+        json.put("message", status.getMessage());
+        return Blobs.createJSONBlob(json.toString());
+    }
+
+    protected boolean isAllowed(AsyncSigningStatus status) {
+        if (!(ctx.getPrincipal() instanceof NuxeoPrincipal)) {
+            return false;
+        }
+        NuxeoPrincipal principal = (NuxeoPrincipal) ctx.getPrincipal();
+        return principal.isAdministrator() || principal.getName().equals(status.getUsername());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.operations;
+
+import org.nuxeo.ecm.automation.OperationContext;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.Context;
+import org.nuxeo.ecm.automation.core.annotations.Operation;
+import org.nuxeo.ecm.automation.core.annotations.OperationMethod;
+import org.nuxeo.ecm.automation.core.annotations.Param;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.NuxeoPrincipal;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SigningDisposition;
+import org.nuxeo.ecm.platform.signature.core.sign.SignatureHelper;
+import org.nuxeo.ecm.platform.usermanager.UserManager;
+
+/**
+ * Schedules the signature of a document, the signing id to poll with {@link GetSigningStatus} is put in a context
+ * variable.
+ *
+ * @since 10.2
+ */
+@Operation(id = SignPDFDocumentAsync.ID, category = Constants.CAT_SERVICES, label = "Sign PDF Asynchronously", description = "Schedules"
+        + " the signature of the PDF blob of the input document and stores the signing id in a context variable.")
+public class SignPDFDocumentAsync {
+
+    public static final String ID = "Services.SignPDFDocumentAsync";
+
+    private static final String MIME_TYPE_PDF = "application/pdf";
+
+    @Context
+    protected OperationContext ctx;
+
+    @Context
+    protected UserManager userManager;
+
+    @Context
+    protected SignatureService signatureService;
+
+    @Param(name = "username", required = true, description = "The user ID for" + " signing PDF document.")
+    protected String username;
+
+    @Param(name = "password", required = true, description = "Certificate " + "password.")
+    protected String password;
+
+    @Param(name = "reason", required = true, description = "Signature reason.")
+    protected String reason;
+
+    @Param(name = "variableName", required = false, description = "Context variable receiving the signing id.")
+    protected String variableName = "signingId";
+
+    @OperationMethod
+    public DocumentModel run(DocumentModel doc) throws OperationException {
+        if (!(ctx.getPrincipal() instanceof NuxeoPrincipal)
+                || !((NuxeoPrincipal) ctx.getPrincipal()).isAdministrator()) {
+            throw new OperationException("Not allowed. You must be administrator to use this operation");
+        }
+        DocumentModel user = userManager.getUserModel(username);
+        Blob originalBlob = doc.getAdapter(BlobHolder.class).getBlob();
+        boolean originalIsPdf = MIME_TYPE_PDF.equals(originalBlob.getMimeType());
+        boolean pdfa = SignatureHelper.getPDFA();
+        SigningDisposition disposition = SignatureHelper.getDisposition(originalIsPdf);
+        String archiveFilename = SignatureHelper.getArchiveFilename(originalBlob.getFilename());
+        String signingId = signatureService.signDocumentAsync(doc, user, password, reason, pdfa, disposition,
+                archiveFilename);
+        ctx.put(variableName, signingId);
+        return doc;
+    }
+}
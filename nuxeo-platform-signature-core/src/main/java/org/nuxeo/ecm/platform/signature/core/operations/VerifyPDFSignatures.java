@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.operations;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.Context;
+import org.nuxeo.ecm.automation.core.annotations.Operation;
+import org.nuxeo.ecm.automation.core.annotations.OperationMethod;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.schema.utils.DateParser;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SignatureVerification;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.StatusWithBlob;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Verifies the signatures of a PDF, or of the signed PDF of a document.
+ *
+ * @since 10.2
+ */
+@Operation(id = VerifyPDFSignatures.ID, category = Constants.CAT_SERVICES, label = "Verify PDF Signatures", description = "Returns"
+        + " a JSON array with, for each signature of the input PDF: name, valid, signer, signDate, coversWholeDocument,"
+        + " revision and error.")
+public class VerifyPDFSignatures {
+
+    public static final String ID = "Services.VerifyPDFSignatures";
+
+    @Context
+    protected SignatureService signatureService;
+
+    @OperationMethod
+    public Blob run(Blob blob) {
+        return toJSON(signatureService.verifySignatures(blob));
+    }
+
+    @OperationMethod
+    public Blob run(DocumentModel doc) {
+        StatusWithBlob status = signatureService.getSigningStatus(doc, null);
+        if (status.getStatus() == StatusWithBlob.UNSIGNED || status.getStatus() == StatusWithBlob.UNSIGNABLE) {
+            return toJSON(Collections.emptyList());
+        }
+        return toJSON(signatureService.verifySignatures(status.getBlob()));
+    }
+
+    protected Blob toJSON(List<SignatureVerification> verifications) {
+        ArrayNode json = new ObjectMapper().createArrayNode();
+        for (SignatureVerification verification : verifications) {
+            ObjectNode node = json.addObject();
+            node.put("name", verification.getName());
+            node.put("valid", verification.isValid());
+            node.put("signer", verification.getCertificate() == null ? null
+                    : verification.getCertificate().getSubjectX500Principal().getName());
+            node.put("signDate", verification.getSignDate() == null ? null
+                    : DateParser.formatW3CDateTime(verification.getSignDate().getTime()));
+            node.put("coversWholeDocument", verification.isCoversWholeDocument());
+            node.put("revision", verification.getRevision());
+            node.put("error", verification.getError());
+        }
+        return Blobs.createJSONBlob(json.toString());
+    }
+}
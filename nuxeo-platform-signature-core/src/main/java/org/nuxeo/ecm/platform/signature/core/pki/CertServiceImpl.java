@@ -28,6 +28,7 @@ import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
@@ -35,6 +36,7 @@ import java.security.Security;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
@@ -42,6 +44,7 @@ import java.util.List;
 
 import javax.security.auth.x500.X500Principal;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.bouncycastle.asn1.x509.BasicConstraints;
@@ -62,12 +65,14 @@ import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.bouncycastle.x509.extension.X509ExtensionUtil;
 import org.nuxeo.ecm.platform.signature.api.exception.CertException;
 import org.nuxeo.ecm.platform.signature.api.pki.CertService;
+import org.nuxeo.ecm.platform.signature.api.pki.KeyType;
 import org.nuxeo.ecm.platform.signature.api.pki.RootService;
 import org.nuxeo.ecm.platform.signature.api.user.AliasType;
 import org.nuxeo.ecm.platform.signature.api.user.AliasWrapper;
 import org.nuxeo.ecm.platform.signature.api.user.CNField;
 import org.nuxeo.ecm.platform.signature.api.user.UserInfo;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.DefaultComponent;
 
 /**
@@ -88,13 +93,34 @@ public class CertServiceImpl extends DefaultComponent implements CertService {
 
     private static final int CERTIFICATE_DURATION_IN_MONTHS = 12;
 
-    private static final String CERT_SIGNATURE_ALGORITHM = "SHA256WithRSAEncryption";
+    private static final String KEYSTORE_TYPE = "JKS";
 
-    private static final String KEY_ALGORITHM = "RSA";
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
 
-    private static final int KEY_SIZE = 1024;
+    /**
+     * Number of key pairs generated ahead of time for each key type, {@code 0} to disable the pool.
+     *
+     * @since 10.2
+     */
+    public static final String KEYPAIR_POOL_SIZE_PROP = "org.nuxeo.ecm.signature.keypairs.pool.size";
 
-    private static final String KEYSTORE_TYPE = "JKS";
+    protected static final int DEFAULT_KEYPAIR_POOL_SIZE = 4;
+
+    /**
+     * Maximum number of key pairs generated per second to refill the pool.
+     *
+     * @since 10.2
+     */
+    public static final String KEYPAIR_POOL_RATE_PROP = "org.nuxeo.ecm.signature.keypairs.pool.rate";
+
+    protected static final int DEFAULT_KEYPAIR_POOL_RATE = 10;
+
+    /**
+     * Key pairs generated ahead of time, {@code null} if disabled.
+     *
+     * @since 10.2
+     */
+    protected volatile KeyPairPool keyPairPool;
 
     static {
         if (Security.getProvider("BC") == null) {
@@ -103,6 +129,23 @@ public class CertServiceImpl extends DefaultComponent implements CertService {
     }
 
 
+    @Override
+    public void start(ComponentContext context) {
+        int size = Integer.parseInt(
+                Framework.getProperty(KEYPAIR_POOL_SIZE_PROP, String.valueOf(DEFAULT_KEYPAIR_POOL_SIZE)));
+        int rate = Integer.parseInt(
+                Framework.getProperty(KEYPAIR_POOL_RATE_PROP, String.valueOf(DEFAULT_KEYPAIR_POOL_RATE)));
+        keyPairPool = size > 0 ? new KeyPairPool(size, rate, this::generateKeyPair) : null;
+    }
+
+    @Override
+    public void stop(ComponentContext context) {
+        if (keyPairPool != null) {
+            keyPairPool.shutdown();
+            keyPairPool = null;
+        }
+    }
+
     @Override
     public X509Certificate getRootCertificate() throws CertException {
         if (rootCertificate == null) {
@@ -125,6 +168,12 @@ public class CertServiceImpl extends DefaultComponent implements CertService {
 
     @Override
     public KeyStore initializeUser(UserInfo userInfo, String suppliedPassword) throws CertException {
+        return initializeUser(userInfo, suppliedPassword, KeyType.DEFAULT);
+    }
+
+    @Override
+    public KeyStore initializeUser(UserInfo userInfo, String suppliedPassword, KeyType keyType)
+            throws CertException {
         char[] password = suppliedPassword.toCharArray();
         KeyStore ks = null;
         String userName = userInfo.getUserFields().get(CNField.UserID);
@@ -132,9 +181,7 @@ public class CertServiceImpl extends DefaultComponent implements CertService {
         try {
             ks = java.security.KeyStore.getInstance(KEYSTORE_TYPE);
             ks.load(null, password);
-            KeyPairGenerator keyGen = KeyPairGenerator.getInstance(KEY_ALGORITHM);
-            keyGen.initialize(KEY_SIZE);
-            KeyPair keyPair = keyGen.genKeyPair();
+            KeyPair keyPair = takeKeyPair(keyType);
             java.security.cert.Certificate[] chain = { getRootCertificate() };
             ks.setKeyEntry(keystoreAlias.getId(AliasType.KEY), keyPair.getPrivate(), password, chain);
             X509Certificate cert = getCertificate(keyPair, userInfo);
@@ -147,10 +194,52 @@ public class CertServiceImpl extends DefaultComponent implements CertService {
             throw new CertException(e);
         } catch (NoSuchAlgorithmException e) {
             throw new CertException(e);
+        } catch (GeneralSecurityException e) {
+            throw new CertException(e);
         }
         return ks;
     }
 
+    /**
+     * Takes a key pair from the pool, or generates it if none is ready.
+     *
+     * @since 10.2
+     */
+    protected KeyPair takeKeyPair(KeyType keyType) throws GeneralSecurityException {
+        KeyPairPool pool = keyPairPool;
+        KeyPair keyPair = pool == null ? null : pool.take(keyType);
+        return keyPair != null ? keyPair : generateKeyPair(keyType);
+    }
+
+    /**
+     * Generates a user key pair. Ed25519 keys are generated by BouncyCastle, which the JDK does not support yet.
+     *
+     * @since 10.2
+     */
+    protected KeyPair generateKeyPair(KeyType keyType) throws GeneralSecurityException {
+        KeyPairGenerator keyGen;
+        if (keyType == KeyType.ED25519) {
+            keyGen = KeyPairGenerator.getInstance(keyType.getKeyAlgorithm(), "BC");
+        } else {
+            keyGen = KeyPairGenerator.getInstance(keyType.getKeyAlgorithm());
+            if (keyType.getCurve() != null) {
+                keyGen.initialize(new ECGenParameterSpec(keyType.getCurve()));
+            } else {
+                keyGen.initialize(keyType.getKeySize());
+            }
+        }
+        return keyGen.generateKeyPair();
+    }
+
+    /**
+     * Gets the algorithm with which a certificate is signed by the given key.
+     *
+     * @since 10.2
+     */
+    protected String getCertificateSignatureAlgorithm(PrivateKey privateKey) throws CertException {
+        return KeyType.getCertificateSignatureAlgorithm(privateKey.getAlgorithm());
+    }
+
     @Override
     public KeyPair getKeyPair(KeyStore ks, String keyAlias, String certAlias, String keyPassword) throws CertException {
         KeyPair keyPair = null;
@@ -213,8 +302,9 @@ public class CertServiceImpl extends DefaultComponent implements CertService {
                    .addExtension(Extension.extendedKeyUsage, true, new ExtendedKeyUsage(KeyPurposeId.id_kp_serverAuth))
                    .addExtension(Extension.subjectAlternativeName, false,
                            new GeneralNames(new GeneralName(GeneralName.rfc822Name, email)));
-            ContentSigner signer = new JcaContentSignerBuilder(CERT_SIGNATURE_ALGORITHM).setProvider("BC")
-                                                                                        .build(keyPair.getPrivate());
+            ContentSigner signer = new JcaContentSignerBuilder(
+                    getCertificateSignatureAlgorithm(keyPair.getPrivate())).setProvider("BC")
+                                                                           .build(keyPair.getPrivate());
             return new JcaX509CertificateConverter().setProvider("BC").getCertificate(builder.build(signer));
         } catch (GeneralSecurityException | OperatorException | IOException e) {
             throw new CertException(e);
@@ -226,7 +316,8 @@ public class CertServiceImpl extends DefaultComponent implements CertService {
         KeyStore ks;
         try {
             ks = java.security.KeyStore.getInstance(KEYSTORE_TYPE);
-            ks.load(keystoreIS, password.toCharArray());
+            // without password the integrity is not checked, only certificates can be read
+            ks.load(keystoreIS, password == null ? null : password.toCharArray());
         } catch (KeyStoreException e) {
             throw new CertException(e);
         } catch (NoSuchAlgorithmException e) {
@@ -260,6 +351,16 @@ public class CertServiceImpl extends DefaultComponent implements CertService {
         }
     }
 
+    @Override
+    public String getCertificateFingerprint(X509Certificate certificate) throws CertException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+            return Hex.encodeHexString(digest.digest(certificate.getEncoded()));
+        } catch (GeneralSecurityException e) {
+            throw new CertException(e);
+        }
+    }
+
     @Override
     public void storeCertificate(KeyStore keystore, OutputStream os, String keystorePassword) throws CertException {
         try {
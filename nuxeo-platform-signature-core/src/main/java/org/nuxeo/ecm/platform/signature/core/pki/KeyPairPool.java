@@ -0,0 +1,131 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.pki;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.platform.signature.api.pki.KeyType;
+import org.nuxeo.ecm.platform.signature.core.sign.SignatureMetrics;
+
+/**
+ * Pool of key pairs generated ahead of time, so that creating a certificate does not wait for the key generation.
+ * <p>
+ * A key type is pooled from the first time a key pair of that type is requested. A single low-priority thread then
+ * generates one key pair at a time, at the configured rate, until each pool is full. Key pairs are only kept in memory
+ * and are never persisted; each one is handed out once.
+ *
+ * @since 10.2
+ */
+public class KeyPairPool {
+
+    private static final Log log = LogFactory.getLog(KeyPairPool.class);
+
+    /**
+     * Generates a key pair of a given type.
+     */
+    @FunctionalInterface
+    public interface Generator {
+
+        KeyPair generate(KeyType keyType) throws GeneralSecurityException;
+    }
+
+    protected final int size;
+
+    protected final Generator generator;
+
+    protected final Map<KeyType, BlockingQueue<KeyPair>> pools = new ConcurrentHashMap<>();
+
+    protected final ScheduledExecutorService refiller;
+
+    /**
+     * @param size the number of key pairs kept ready for each key type
+     * @param rate the maximum number of key pairs generated per second
+     */
+    public KeyPairPool(int size, int rate, Generator generator) {
+        this.size = size;
+        this.generator = generator;
+        long delayMillis = Math.max(1, 1000 / Math.max(1, rate));
+        refiller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Nuxeo-Signature-KeyPairPool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        refiller.scheduleWithFixedDelay(this::refill, delayMillis, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a pre-generated key pair of the given type, or returns {@code null} if none is ready, in which case the
+     * caller generates it itself.
+     */
+    public KeyPair take(KeyType keyType) {
+        KeyPair keyPair = pools.computeIfAbsent(keyType, k -> new ArrayBlockingQueue<>(size)).poll();
+        if (keyPair == null) {
+            SignatureMetrics.KEYPAIR_POOL_MISSES.inc();
+        } else {
+            SignatureMetrics.KEYPAIR_POOL_HITS.inc();
+        }
+        return keyPair;
+    }
+
+    /**
+     * Gets the number of key pairs of the given type ready to be taken.
+     */
+    public int getAvailable(KeyType keyType) {
+        BlockingQueue<KeyPair> pool = pools.get(keyType);
+        return pool == null ? 0 : pool.size();
+    }
+
+    /**
+     * Generates one key pair for the first pool that is not full.
+     */
+    protected void refill() {
+        for (Map.Entry<KeyType, BlockingQueue<KeyPair>> entry : pools.entrySet()) {
+            if (entry.getValue().remainingCapacity() == 0) {
+                continue;
+            }
+            try {
+                entry.getValue().offer(generator.generate(entry.getKey()));
+            } catch (GeneralSecurityException | RuntimeException e) {
+                // an exception would cancel the next refills
+                log.error("Cannot pre-generate a key pair of type " + entry.getKey().getId(), e);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Stops the refill and drops the key pairs not taken.
+     */
+    public void shutdown() {
+        refiller.shutdownNow();
+        pools.clear();
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.PrivateKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cms.CMSAbsentContent;
+import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.nuxeo.ecm.platform.signature.api.exception.SignException;
+import org.nuxeo.ecm.platform.signature.api.pki.KeyType;
+
+/**
+ * Builds detached CMS signatures for PDF signature dictionaries ({@code adbe.pkcs7.detached}) from an already computed
+ * digest of the signed byte ranges.
+ *
+ * @since 10.2
+ */
+public class CMSSigner {
+
+    public static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Digest algorithm for Ed25519 keys, whose signed attributes use SHA-512 (RFC 8419).
+     *
+     * @since 10.2
+     */
+    public static final String ED25519_DIGEST_ALGORITHM = "SHA-512";
+
+    protected static final String ED25519_OID = "1.3.101.112";
+
+    private CMSSigner() {
+        // utility class
+    }
+
+    /**
+     * Signs the digest of some content, which is not needed itself.
+     *
+     * @param digest the digest of the signed content, computed with the {@linkplain #getDigestAlgorithm algorithm}
+     *            matching the key
+     * @param privateKey the signing key
+     * @param certificate the certificate of the signing key
+     * @return the DER-encoded CMS signature
+     */
+    public static byte[] sign(byte[] digest, PrivateKey privateKey, X509Certificate certificate)
+            throws SignException {
+        try {
+            ContentSigner contentSigner = new JcaContentSignerBuilder(
+                    KeyType.getCertificateSignatureAlgorithm(privateKey.getAlgorithm())).build(privateKey);
+            CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+            generator.addSignerInfoGenerator(
+                    new JcaSignerInfoGeneratorBuilder(precomputed(digest)).build(contentSigner, certificate));
+            generator.addCertificates(new JcaCertStore(Collections.singletonList(certificate)));
+            // the content is absent, the message digest signed attribute is the precomputed digest
+            return generator.generate(new CMSAbsentContent(), false).getEncoded();
+        } catch (OperatorCreationException | CertificateEncodingException | CMSException | IOException e) {
+            throw new SignException(e);
+        }
+    }
+
+    /**
+     * Gets the algorithm of the digest to sign with a key of the given algorithm.
+     *
+     * @since 10.2
+     */
+    public static String getDigestAlgorithm(String keyAlgorithm) {
+        return isEdDSA(keyAlgorithm) ? ED25519_DIGEST_ALGORITHM : DIGEST_ALGORITHM;
+    }
+
+    protected static boolean isEdDSA(String keyAlgorithm) {
+        // providers without EdDSA support name the key by its OID
+        return "Ed25519".equals(keyAlgorithm) || "EdDSA".equals(keyAlgorithm) || ED25519_OID.equals(keyAlgorithm);
+    }
+
+    /**
+     * Digest calculators that ignore their input and return the given digest.
+     */
+    protected static DigestCalculatorProvider precomputed(byte[] digest) {
+        return algorithm -> new DigestCalculator() {
+
+            @Override
+            public AlgorithmIdentifier getAlgorithmIdentifier() {
+                return algorithm;
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return new NullOutputStream();
+            }
+
+            @Override
+            public byte[] getDigest() {
+                return digest.clone();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Calendar;
+import java.util.Collection;
+
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.asn1.cms.CMSAttributes;
+import org.bouncycastle.asn1.cms.Time;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSProcessable;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.nuxeo.ecm.platform.signature.api.exception.SignException;
+
+/**
+ * Reads and verifies detached CMS signatures of PDF signature dictionaries ({@code adbe.pkcs7.detached}) with
+ * BouncyCastle, for signature algorithms that {@link com.lowagie.text.pdf.PdfPKCS7} does not know, such as Ed25519.
+ *
+ * @since 10.2
+ */
+public class CMSVerifier {
+
+    private CMSVerifier() {
+        // utility class
+    }
+
+    /**
+     * A decoded signature with its signer.
+     */
+    public static class SignerData {
+
+        protected final CMSSignedData signedData;
+
+        protected final SignerInformation signer;
+
+        protected final X509Certificate certificate;
+
+        protected SignerData(CMSSignedData signedData, SignerInformation signer, X509Certificate certificate) {
+            this.signedData = signedData;
+            this.signer = signer;
+            this.certificate = certificate;
+        }
+
+        public X509Certificate getCertificate() {
+            return certificate;
+        }
+
+        /**
+         * Gets the signing time signed attribute, or {@code null} if absent.
+         */
+        public Calendar getSignDate() {
+            AttributeTable attributes = signer.getSignedAttributes();
+            Attribute attribute = attributes == null ? null : attributes.get(CMSAttributes.signingTime);
+            if (attribute == null) {
+                return null;
+            }
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(Time.getInstance(attribute.getAttrValues().getObjectAt(0)).getDate());
+            return calendar;
+        }
+    }
+
+    /**
+     * Decodes the {@code /Contents} of a signature dictionary, which may be padded with zeros.
+     */
+    public static SignerData decode(byte[] contents) throws SignException {
+        try {
+            CMSSignedData signedData = new CMSSignedData(contents);
+            Collection<SignerInformation> signers = signedData.getSignerInfos().getSigners();
+            if (signers.isEmpty()) {
+                throw new SignException("No signer in signature");
+            }
+            SignerInformation signer = signers.iterator().next();
+            @SuppressWarnings("unchecked")
+            Collection<X509CertificateHolder> holders = signedData.getCertificates().getMatches(signer.getSID());
+            if (holders.isEmpty()) {
+                throw new SignException("No signer certificate in signature");
+            }
+            X509Certificate certificate = new JcaX509CertificateConverter().setProvider("BC")
+                                                                          .getCertificate(holders.iterator().next());
+            return new SignerData(signedData, signer, certificate);
+        } catch (CMSException | CertificateException e) {
+            throw new SignException(e);
+        }
+    }
+
+    /**
+     * Verifies a decoded signature against the signed byte ranges of the PDF file.
+     *
+     * @return whether the signature is valid
+     */
+    public static boolean verify(SignerData data, File pdfFile, int[] byteRange) throws SignException, IOException {
+        CMSProcessable content = new ByteRangeContent(pdfFile, byteRange);
+        try {
+            CMSSignedData signedData = new CMSSignedData(content, data.signedData.getEncoded());
+            SignerInformation signer = signedData.getSignerInfos().get(data.signer.getSID());
+            return signer.verify(new JcaSimpleSignerInfoVerifierBuilder().setProvider("BC").build(data.certificate));
+        } catch (CMSException e) {
+            // the exceptions of the content are wrapped
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new SignException(e);
+        } catch (OperatorCreationException e) {
+            throw new SignException(e);
+        }
+    }
+
+    /**
+     * Receives the successive chunks of the signed byte ranges.
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer<E extends Exception> {
+
+        void accept(byte[] buffer, int offset, int length) throws E;
+    }
+
+    /**
+     * Reads the signed byte ranges of a PDF file.
+     * <p>
+     * The ranges are walked through mapped buffers, only a small chunk at a time is copied for the consumer, which
+     * must not keep the buffer.
+     *
+     * @param byteRange the offset and length pairs of the {@code /ByteRange} of the signature dictionary
+     */
+    public static <E extends Exception> void readByteRanges(File pdfFile, int[] byteRange, ChunkConsumer<E> consumer)
+            throws IOException, E {
+        try (FileChannel channel = FileChannel.open(pdfFile.toPath(), StandardOpenOption.READ)) {
+            byte[] buffer = new byte[8192];
+            for (int i = 0; i + 1 < byteRange.length; i += 2) {
+                if ((long) byteRange[i] + byteRange[i + 1] > channel.size()) {
+                    throw new EOFException("Signed range past the end of the file");
+                }
+                MappedByteBuffer range = channel.map(MapMode.READ_ONLY, byteRange[i], byteRange[i + 1]);
+                while (range.hasRemaining()) {
+                    int n = Math.min(buffer.length, range.remaining());
+                    range.get(buffer, 0, n);
+                    consumer.accept(buffer, 0, n);
+                }
+            }
+        }
+    }
+
+    /**
+     * The signed byte ranges of a PDF file, read through a mapping when digested.
+     */
+    protected static class ByteRangeContent implements CMSProcessable {
+
+        protected final File file;
+
+        protected final int[] byteRange;
+
+        protected ByteRangeContent(File file, int[] byteRange) {
+            this.file = file;
+            this.byteRange = byteRange;
+        }
+
+        @Override
+        public void write(OutputStream out) throws IOException {
+            readByteRanges(file, byteRange, out::write);
+        }
+
+        @Override
+        public Object getContent() {
+            return file;
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Function;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.blob.BlobManager;
+import org.nuxeo.ecm.core.blob.BlobProvider;
+import org.nuxeo.ecm.core.blob.ManagedBlob;
+import org.nuxeo.ecm.core.blob.binary.Binary;
+import org.nuxeo.ecm.core.blob.binary.BinaryBlob;
+import org.nuxeo.ecm.core.blob.binary.BinaryManager;
+import org.nuxeo.runtime.api.Framework;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache of the PDF conversions of the documents to sign, keyed by blob provider and digest of the source blob and
+ * PDF/A flag.
+ * <p>
+ * The converted PDFs are written to the binary store of the source blob, only their digests are kept in memory, and
+ * entries are evicted once the total size of the converted PDFs exceeds the configured maximum. An entry whose binary
+ * was garbage collected meanwhile is simply converted again.
+ * <p>
+ * Eviction only forgets the digest: the binary of a conversion that no document references stays in the binary store
+ * until the next binaries garbage collection, which deletes it. Only binary stores keeping their binaries as local
+ * files are used.
+ *
+ * @since 10.2
+ */
+public class ConversionCache {
+
+    private static final Log log = LogFactory.getLog(ConversionCache.class);
+
+    protected static final String MIME_TYPE_PDF = "application/pdf";
+
+    protected final Cache<String, Entry> cache;
+
+    protected static class Entry {
+
+        protected final String providerId;
+
+        protected final String digest;
+
+        protected final long length;
+
+        protected Entry(String providerId, String digest, long length) {
+            this.providerId = providerId;
+            this.digest = digest;
+            this.length = length;
+        }
+
+        /** The blob key, prefixed by the provider id like the keys of the blobs stored by the blob manager. */
+        protected String getKey() {
+            return providerId + ":" + digest;
+        }
+    }
+
+    /**
+     * @param maxSize the maximum total size in bytes of the converted PDFs
+     */
+    public ConversionCache(long maxSize) {
+        cache = CacheBuilder.newBuilder()
+                            .maximumWeight(maxSize)
+                            .weigher((String key, Entry entry) -> (int) Math.min(entry.length, Integer.MAX_VALUE))
+                            .build();
+    }
+
+    /**
+     * Gets the PDF conversion of a blob, converting it if it is not cached yet.
+     * <p>
+     * Blobs without digest or not managed by a blob provider, which are not stored yet, are always converted.
+     *
+     * @param blob the blob to convert
+     * @param pdfa whether the conversion is to PDF/A
+     * @param converter the conversion to use on a cache miss
+     * @return the PDF
+     */
+    public Blob convert(Blob blob, boolean pdfa, Function<Blob, Blob> converter) {
+        String sourceDigest = blob.getDigest();
+        if (sourceDigest == null || !(blob instanceof ManagedBlob)) {
+            return converter.apply(blob);
+        }
+        String providerId = ((ManagedBlob) blob).getProviderId();
+        BinaryManager binaryManager = getBinaryManager(providerId);
+        if (binaryManager == null) {
+            return converter.apply(blob);
+        }
+        String key = providerId + ":" + sourceDigest + (pdfa ? "/pdfa" : "/pdf");
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            Binary binary = binaryManager.getBinary(entry.digest);
+            if (binary != null && binary.getFile() != null && binary.getFile().exists()) {
+                return toBlob(binary, entry, blob);
+            }
+            cache.invalidate(key);
+        }
+        Blob pdfBlob = converter.apply(blob);
+        Binary binary;
+        try {
+            binary = binaryManager.getBinary(pdfBlob);
+        } catch (IOException e) {
+            log.warn("Cannot store the conversion of blob " + sourceDigest + ": " + e.getMessage());
+            log.debug(e, e);
+            return pdfBlob;
+        }
+        // the length of the blob returned by the converter may be unknown, the stored file is measured instead
+        File file = binary.getFile();
+        if (file == null || !file.exists()) {
+            return pdfBlob;
+        }
+        entry = new Entry(providerId, binary.getDigest(), file.length());
+        cache.put(key, entry);
+        return toBlob(binary, entry, blob);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the binary manager of a blob provider, {@code null} if the provider has none.
+     */
+    protected BinaryManager getBinaryManager(String providerId) {
+        BlobProvider blobProvider = Framework.getService(BlobManager.class).getBlobProvider(providerId);
+        return blobProvider == null ? null : blobProvider.getBinaryManager();
+    }
+
+    protected Blob toBlob(Binary binary, Entry entry, Blob source) {
+        String filename = source.getFilename() == null ? null
+                : FilenameUtils.getBaseName(source.getFilename()) + ".pdf";
+        return new BinaryBlob(binary, entry.getKey(), filename, MIME_TYPE_PDF, null, entry.digest, entry.length);
+    }
+
+}
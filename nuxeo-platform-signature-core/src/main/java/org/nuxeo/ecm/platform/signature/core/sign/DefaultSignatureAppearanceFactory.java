@@ -19,6 +19,8 @@
 package org.nuxeo.ecm.platform.signature.core.sign;
 
 import java.awt.Color;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,16 +38,49 @@ public class DefaultSignatureAppearanceFactory implements SignatureAppearanceFac
 
     protected static final Log LOGGER = LogFactory.getLog(DefaultSignatureAppearanceFactory.class);
 
+    protected static final Color TEXT_COLOR = new Color(0x00, 0x00, 0x00);
+
+    /**
+     * Fonts of the signature description by text size, only read once created.
+     *
+     * @since 10.2
+     */
+    protected static final ConcurrentMap<Integer, Font> FONTS = new ConcurrentHashMap<>();
+
+    /**
+     * Font for the layout of the configuration this factory belongs to, resolved on first use.
+     *
+     * @since 10.2
+     */
+    protected volatile Font layer2Font;
+
     @Override
     public void format(PdfSignatureAppearance pdfSignatureAppearance, DocumentModel doc, String principal, String reason) {
         pdfSignatureAppearance.setReason(reason);
         pdfSignatureAppearance.setAcro6Layers(true);
         pdfSignatureAppearance.setRender(PdfSignatureAppearance.SignatureRenderDescription);
-        SignatureService service = Framework.getService(SignatureService.class);
-        SignatureLayout layout = ((SignatureServiceImpl)service).getSignatureLayout();
-        Font layer2Font = FontFactory.getFont(FontFactory.TIMES, layout.getTextSize(), Font.NORMAL, new Color(
-                        0x00, 0x00, 0x00));
-        pdfSignatureAppearance.setLayer2Font(layer2Font);
+        pdfSignatureAppearance.setLayer2Font(getLayer2Font());
+    }
+
+    /**
+     * @since 10.2
+     */
+    protected Font getLayer2Font() {
+        Font font = layer2Font;
+        if (font == null) {
+            SignatureLayout layout = getSignatureLayout();
+            font = FONTS.computeIfAbsent(layout.getTextSize(),
+                    textSize -> FontFactory.getFont(FontFactory.TIMES, textSize, Font.NORMAL, TEXT_COLOR));
+            layer2Font = font;
+        }
+        return font;
+    }
+
+    /**
+     * @since 10.2
+     */
+    protected SignatureLayout getSignatureLayout() {
+        return Framework.getService(SignatureService.class).getSignatureLayout();
     }
 
 }
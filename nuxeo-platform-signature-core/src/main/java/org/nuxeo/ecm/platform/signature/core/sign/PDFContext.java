@@ -0,0 +1,146 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.platform.signature.api.exception.SignException;
+import org.nuxeo.runtime.api.Framework;
+
+import com.codahale.metrics.Timer;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+
+/**
+ * A PDF blob parsed at most once for the duration of a signing or status operation.
+ * <p>
+ * The reader and the metadata about the signatures already present in the PDF are computed lazily and reused by status
+ * detection, duplicate signer checks, signature positioning and stamping.
+ * <p>
+ * The PDF is always read from a file: a blob without a local file is first spooled to a temporary one, so that neither
+ * parsing nor the copy of the original revision done by the stamper in append mode needs the whole PDF in memory.
+ * Files are memory-mapped unless disabled by {@value #MMAP_PROP}, so that reads are served by the OS page cache.
+ *
+ * @since 10.2
+ */
+public class PDFContext implements AutoCloseable {
+
+    /**
+     * Whether PDF files are memory-mapped for reading, {@code true} by default. Mapped files cannot be deleted or moved
+     * on Windows until unmapped.
+     */
+    public static final String MMAP_PROP = "org.nuxeo.ecm.signature.mmap.enabled";
+
+    protected final Blob blob;
+
+    protected PdfReader reader;
+
+    /** Temporary copy of a blob without local file, deleted on close. */
+    protected File spooledFile;
+
+    /** Signatures already present in the PDF, filled by the signature service. */
+    protected SignatureMetadata metadata;
+
+    public PDFContext(Blob blob) {
+        this.blob = blob;
+    }
+
+    public Blob getBlob() {
+        return blob;
+    }
+
+    /**
+     * Gets a local file with the content of the PDF, spooling the blob to a temporary file if it has none.
+     */
+    public File getFile() throws IOException {
+        File file = blob.getFile();
+        if (file != null) {
+            return file;
+        }
+        if (spooledFile == null) {
+            File tmp = Framework.createTempFile("nxsign-", ".pdf");
+            try (InputStream in = blob.getStream();
+                    ReadableByteChannel source = Channels.newChannel(in);
+                    FileChannel target = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+                long position = 0;
+                long n;
+                while ((n = target.transferFrom(source, position, Long.MAX_VALUE)) > 0) {
+                    position += n;
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(tmp.toPath());
+                throw e;
+            }
+            spooledFile = tmp;
+        }
+        return spooledFile;
+    }
+
+    /**
+     * Gets the reader for the PDF, parsing it on first call.
+     * <p>
+     * The reader is opened in partial mode over the file so that only the cross-reference table and the objects
+     * actually used are loaded in memory.
+     *
+     * @see #open(File)
+     */
+    public PdfReader getReader() throws SignException {
+        if (reader == null) {
+            try (Timer.Context timer = SignatureMetrics.PARSE.time()) {
+                reader = new PdfReader(open(getFile()), null);
+            } catch (IOException e) {
+                String message = "";
+                if ("PDF header signature not found.".equals(e.getMessage())) {
+                    message = "PDF seems to be corrupted";
+                }
+                throw new SignException(message, e);
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Opens a source over a PDF file, memory-mapped if enabled and if the file fits in a single mapping.
+     */
+    public static RandomAccessFileOrArray open(File file) throws IOException {
+        boolean mapped = !Framework.isBooleanPropertyFalse(MMAP_PROP) && file.length() <= Integer.MAX_VALUE;
+        return new RandomAccessFileOrArray(file.getPath(), false, !mapped);
+    }
+
+    @Override
+    public void close() {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        if (spooledFile != null) {
+            spooledFile.delete();
+            spooledFile = null;
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.util.Collection;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nuxeo.ecm.platform.signature.api.exception.SignException;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureAppearanceFactory;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureLayout;
+
+/**
+ * Immutable configuration resolved from the signature contributions, shared by all signing threads.
+ *
+ * @since 10.2
+ */
+public class SignatureConfiguration {
+
+    protected final SignatureLayout layout;
+
+    protected final String reason;
+
+    protected final SignatureAppearanceFactory appearanceFactory;
+
+    public SignatureConfiguration(SignatureLayout layout, String reason,
+            SignatureAppearanceFactory appearanceFactory) {
+        this.layout = layout;
+        this.reason = reason;
+        this.appearanceFactory = appearanceFactory;
+    }
+
+    /**
+     * Resolves the configuration from the registered contributions, with the same precedence as their iteration order.
+     */
+    public static SignatureConfiguration compile(Collection<SignatureDescriptor> descriptors) throws SignException {
+        SignatureLayout layout = null;
+        String reason = null;
+        SignatureAppearanceFactory appearanceFactory = null;
+        for (SignatureDescriptor descriptor : descriptors) {
+            if (layout == null) {
+                layout = descriptor.getSignatureLayout();
+            }
+            if (reason == null && !StringUtils.isBlank(descriptor.getReason())) {
+                reason = descriptor.getReason();
+            }
+            if (appearanceFactory == null) {
+                try {
+                    appearanceFactory = descriptor.getAppearanceFatory();
+                } catch (InstantiationException | IllegalAccessException e) {
+                    throw new SignException(e);
+                }
+            }
+        }
+        if (layout == null) {
+            layout = new SignatureDescriptor.SignatureLayout();
+        }
+        if (appearanceFactory == null) {
+            appearanceFactory = new DefaultSignatureAppearanceFactory();
+        }
+        return new SignatureConfiguration(layout, reason, appearanceFactory);
+    }
+
+    public SignatureLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Gets the default signing reason, or {@code null} if none is configured.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public SignatureAppearanceFactory getAppearanceFactory() {
+        return appearanceFactory;
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable information about the signatures already present in a PDF.
+ *
+ * @since 10.2
+ */
+public class SignatureMetadata {
+
+    protected final List<X509Certificate> certificates;
+
+    protected final List<String> emails;
+
+    protected final List<String> fingerprints;
+
+    public SignatureMetadata(List<X509Certificate> certificates, List<String> emails, List<String> fingerprints) {
+        this.certificates = Collections.unmodifiableList(certificates);
+        this.emails = Collections.unmodifiableList(emails);
+        this.fingerprints = Collections.unmodifiableList(fingerprints);
+    }
+
+    /**
+     * Gets the signing certificates, in signature order.
+     */
+    public List<X509Certificate> getCertificates() {
+        return certificates;
+    }
+
+    /**
+     * Gets the emails of the signers (certificates without email are skipped).
+     */
+    public List<String> getEmails() {
+        return emails;
+    }
+
+    /**
+     * Gets the SHA-256 fingerprints of the signing certificates, in signature order.
+     */
+    public List<String> getFingerprints() {
+        return fingerprints;
+    }
+
+    public int getSignatureCount() {
+        return certificates.size();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(signatures=" + getSignatureCount() + ",emails=" + emails + ")";
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * Timers of the signature phases, failure and key pair pool counters, registered in the platform metrics registry under
+ * {@code nuxeo.signature}.
+ *
+ * @since 10.2
+ */
+public class SignatureMetrics {
+
+    protected static final MetricRegistry registry = SharedMetricRegistries.getOrCreate(
+            MetricsService.class.getName());
+
+    protected static final String PREFIX = "nuxeo.signature";
+
+    /** Whole signature of a document, from status detection to the signed blob. */
+    public static final Timer SIGN = registry.timer(name(PREFIX, "sign"));
+
+    /** Conversion of a non-PDF document to PDF. */
+    public static final Timer CONVERSION = registry.timer(name(PREFIX, "conversion"));
+
+    /** Unlock of the user key, from the directory lookup to the extracted key. */
+    public static final Timer CREDENTIALS = registry.timer(name(PREFIX, "credentials"));
+
+    /** Lookup of the stored keystore in the certificate directory. */
+    public static final Timer KEYSTORE_LOOKUP = registry.timer(name(PREFIX, "keystore", "lookup"));
+
+    /** Decryption of a stored keystore. */
+    public static final Timer KEYSTORE_LOAD = registry.timer(name(PREFIX, "keystore", "load"));
+
+    /** Opening of a PDF with its cross-reference table. */
+    public static final Timer PARSE = registry.timer(name(PREFIX, "parse"));
+
+    /** Extraction of the existing signers of a PDF. */
+    public static final Timer SIGNERS = registry.timer(name(PREFIX, "signers"));
+
+    /** Creation of the signature field and its appearance. */
+    public static final Timer STAMP = registry.timer(name(PREFIX, "stamp"));
+
+    /** Signing and writing of the signed PDF. */
+    public static final Timer WRITE = registry.timer(name(PREFIX, "write"));
+
+    /** Preparation stage of a batch: status detection and conversion of a document. */
+    public static final Timer PIPELINE_PREPARE = registry.timer(name(PREFIX, "pipeline", "prepare"));
+
+    /** Signing stage of a batch: signature of a prepared document. */
+    public static final Timer PIPELINE_SIGN = registry.timer(name(PREFIX, "pipeline", "sign"));
+
+    /** Certificate creations that took a pre-generated key pair. */
+    public static final Counter KEYPAIR_POOL_HITS = registry.counter(name(PREFIX, "keypairs", "pool", "hits"));
+
+    /** Certificate creations that generated their key pair because none was ready. */
+    public static final Counter KEYPAIR_POOL_MISSES = registry.counter(name(PREFIX, "keypairs", "pool", "misses"));
+
+    private SignatureMetrics() {
+        // utility class
+    }
+
+    /**
+     * Counts a failed signature by exception type.
+     */
+    public static void failure(Exception e) {
+        registry.counter(name(PREFIX, "failures", e.getClass().getSimpleName())).inc();
+    }
+
+}
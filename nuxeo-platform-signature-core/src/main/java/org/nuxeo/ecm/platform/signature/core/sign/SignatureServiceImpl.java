@@ -26,18 +26,28 @@ import static org.nuxeo.ecm.platform.signature.api.sign.SignatureService.StatusW
 import static org.nuxeo.ecm.platform.signature.api.sign.SignatureService.StatusWithBlob.UNSIGNED;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
-import java.security.KeyStore;
+import java.security.KeyStore.PrivateKeyEntry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -45,6 +55,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.ListDiff;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
@@ -52,27 +63,39 @@ import org.nuxeo.ecm.core.api.blobholder.DocumentBlobHolder;
 import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
 import org.nuxeo.ecm.core.convert.api.ConversionException;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
+import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.platform.signature.api.exception.AlreadySignedException;
 import org.nuxeo.ecm.platform.signature.api.exception.CertException;
 import org.nuxeo.ecm.platform.signature.api.exception.SignException;
 import org.nuxeo.ecm.platform.signature.api.pki.CertService;
+import org.nuxeo.ecm.platform.signature.api.sign.PreparedSignature;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureAppearanceFactory;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureLayout;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureService;
-import org.nuxeo.ecm.platform.signature.api.user.AliasType;
-import org.nuxeo.ecm.platform.signature.api.user.AliasWrapper;
 import org.nuxeo.ecm.platform.signature.api.user.CUserService;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.ComponentInstance;
 import org.nuxeo.runtime.model.DefaultComponent;
 
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import com.lowagie.text.DocumentException;
 import com.lowagie.text.Rectangle;
 import com.lowagie.text.pdf.AcroFields;
+import com.lowagie.text.pdf.PdfArray;
+import com.lowagie.text.pdf.PdfDate;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfObject;
 import com.lowagie.text.pdf.PdfPKCS7;
 import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfSignature;
 import com.lowagie.text.pdf.PdfSignatureAppearance;
 import com.lowagie.text.pdf.PdfStamper;
+import com.lowagie.text.pdf.PdfString;
 
 /**
  * Base implementation for the signature service (also a Nuxeo component).
@@ -108,26 +131,299 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
 
     protected static final String FILE_CONTENT = "file:content";
 
+    /**
+     * @since 10.2
+     */
+    protected static final String FILES_SCHEMA = "files";
+
     protected static final String FILES_FILES = "files:files";
 
     protected static final String FILES_FILE = "file";
 
     protected static final String USER_EMAIL = "user:email";
 
+    /**
+     * Maximum number of PDFs whose signature metadata is kept in memory.
+     *
+     * @since 10.2
+     */
+    public static final String METADATA_CACHE_SIZE_PROP = "org.nuxeo.ecm.signature.metadata.cache.size";
+
+    protected static final long DEFAULT_METADATA_CACHE_SIZE = 1000;
+
+    /**
+     * Number of threads used to sign batches of documents. Defaults to the number of processors.
+     *
+     * @since 10.2
+     */
+    public static final String BATCH_THREADS_PROP = "org.nuxeo.ecm.signature.batch.threads";
+
+    /**
+     * Number of documents of a batch waiting for a signing thread. Defaults to twice the number of threads.
+     *
+     * @since 10.2
+     */
+    public static final String BATCH_QUEUE_SIZE_PROP = "org.nuxeo.ecm.signature.batch.queue.size";
+
+    /**
+     * Number of threads preparing the documents of a batch for signature, which includes their conversion to PDF.
+     *
+     * @since 10.2
+     */
+    public static final String CONVERSION_THREADS_PROP = "org.nuxeo.ecm.signature.conversion.threads";
+
+    protected static final int DEFAULT_CONVERSION_THREADS = 2;
+
+    /**
+     * Number of threads used to verify the signatures of a PDF. Defaults to the number of processors.
+     *
+     * @since 10.2
+     */
+    public static final String VERIFY_THREADS_PROP = "org.nuxeo.ecm.signature.verify.threads";
+
+    /**
+     * Maximum total size in bytes of the PDF conversions kept for signing, {@code 0} to disable the cache.
+     *
+     * @since 10.2
+     */
+    public static final String CONVERSION_CACHE_SIZE_PROP = "org.nuxeo.ecm.signature.conversion.cache.size";
+
+    protected static final long DEFAULT_CONVERSION_CACHE_SIZE = 1024L * 1024 * 1024;
+
+    protected static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Time in seconds after which a prepared signature that was not completed is discarded.
+     *
+     * @since 10.2
+     */
+    public static final String PREPARED_TIMEOUT_PROP = "org.nuxeo.ecm.signature.prepared.timeout";
+
+    protected static final long DEFAULT_PREPARED_TIMEOUT = 600;
+
+    /**
+     * Interval in seconds between two sweeps of the expired prepared signatures.
+     *
+     * @since 10.2
+     */
+    protected static final long PREPARED_CLEANUP_INTERVAL = 60;
+
+    /**
+     * Size in bytes reserved in the PDF for a signature computed outside of this service.
+     *
+     * @since 10.2
+     */
+    protected static final int RESERVED_SIGNATURE_SIZE = 8192;
+
+    /**
+     * Key algorithm that the PDF stamper can sign with itself, other keys sign through a detached CMS signature.
+     *
+     * @since 10.2
+     */
+    protected static final String SELF_SIGNED_KEY_ALGORITHM = "RSA";
+
     protected final Map<String, SignatureDescriptor> signatureRegistryMap;
 
+    /**
+     * Configuration resolved from {@link #signatureRegistryMap}, {@code null} until first needed after a change.
+     *
+     * @since 10.2
+     */
+    protected volatile SignatureConfiguration configuration;
+
+    /**
+     * Signature metadata of stored PDFs, keyed by blob digest. Stored blobs are immutable so entries never go stale.
+     *
+     * @since 10.2
+     */
+    protected Cache<String, SignatureMetadata> metadataCache;
+
+    /**
+     * PDF conversions of the documents to sign, {@code null} if disabled.
+     *
+     * @since 10.2
+     */
+    protected ConversionCache conversionCache;
+
+    /**
+     * @since 10.2
+     */
+    protected SigningEngine signingEngine;
+
+    /**
+     * Pool preparing the documents of a batch, separate from the signing one so that conversions and signatures of
+     * different documents overlap.
+     *
+     * @since 10.2
+     */
+    protected SigningEngine conversionEngine;
+
+    /**
+     * @since 10.2
+     */
+    protected SigningPipeline signingPipeline;
+
+    /**
+     * Pool verifying the signatures of a PDF, separate from the batch signing one so that neither waits on the other.
+     *
+     * @since 10.2
+     */
+    protected SigningEngine verificationEngine;
+
+    /**
+     * Prepared signatures waiting for their completion, keyed by id.
+     *
+     * @since 10.2
+     */
+    protected Cache<String, PendingSignature> pendingSignatures;
+
+    /**
+     * Sweeps the expired prepared signatures, which the cache would otherwise only release on its next access.
+     *
+     * @since 10.2
+     */
+    protected ScheduledExecutorService pendingSignaturesCleaner;
+
+    /**
+     * A PDF whose signature dictionary is written, waiting for the signature to be inserted.
+     *
+     * @since 10.2
+     */
+    protected static class PendingSignature {
+
+        protected final PDFContext context;
+
+        protected final PdfSignatureAppearance appearance;
+
+        protected final Blob blob;
+
+        protected final byte[] digest;
+
+        protected final String digestAlgorithm;
+
+        protected PendingSignature(PDFContext context, PdfSignatureAppearance appearance, Blob blob, byte[] digest,
+                String digestAlgorithm) {
+            this.context = context;
+            this.appearance = appearance;
+            this.blob = blob;
+            this.digest = digest;
+            this.digestAlgorithm = digestAlgorithm;
+        }
+
+        /**
+         * Closes the output file, left without signature, and deletes it.
+         */
+        protected void release() {
+            PdfDictionary update = new PdfDictionary();
+            update.put(PdfName.CONTENTS, new PdfString(new byte[RESERVED_SIGNATURE_SIZE]).setHexWriting(true));
+            try {
+                appearance.close(update); // closes the file
+            } catch (IOException | DocumentException | RuntimeException e) {
+                // already closed, or failed while closing
+                log.debug("Cannot close prepared signature file " + blob.getFile(), e);
+            }
+            blob.getFile().delete();
+        }
+
+        protected void discard() {
+            release();
+            context.close();
+        }
+    }
+
     public SignatureServiceImpl() {
         signatureRegistryMap = new HashMap<>();
     }
 
+    @Override
+    public void activate(ComponentContext context) {
+        long size = Long.parseLong(
+                Framework.getProperty(METADATA_CACHE_SIZE_PROP, String.valueOf(DEFAULT_METADATA_CACHE_SIZE)));
+        metadataCache = CacheBuilder.newBuilder().maximumSize(size).build();
+        long conversionCacheSize = Long.parseLong(
+                Framework.getProperty(CONVERSION_CACHE_SIZE_PROP, String.valueOf(DEFAULT_CONVERSION_CACHE_SIZE)));
+        conversionCache = conversionCacheSize > 0 ? new ConversionCache(conversionCacheSize) : null;
+        long timeout = Long.parseLong(
+                Framework.getProperty(PREPARED_TIMEOUT_PROP, String.valueOf(DEFAULT_PREPARED_TIMEOUT)));
+        pendingSignatures = newPendingSignatureCache(timeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @since 10.2
+     */
+    protected Cache<String, PendingSignature> newPendingSignatureCache(long timeout, TimeUnit unit) {
+        return CacheBuilder.newBuilder()
+                           .expireAfterWrite(timeout, unit)
+                           .removalListener(this::onPendingSignatureRemoval)
+                           .build();
+    }
+
+    @Override
+    public void deactivate(ComponentContext context) {
+        metadataCache.invalidateAll();
+        metadataCache = null;
+        if (conversionCache != null) {
+            conversionCache.invalidateAll();
+            conversionCache = null;
+        }
+        pendingSignatures.asMap().values().forEach(PendingSignature::discard);
+        pendingSignatures = null;
+    }
+
+    @Override
+    public void start(ComponentContext context) {
+        int threads = Integer.parseInt(Framework.getProperty(BATCH_THREADS_PROP,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int queueSize = Integer.parseInt(Framework.getProperty(BATCH_QUEUE_SIZE_PROP, String.valueOf(2 * threads)));
+        signingEngine = new SigningEngine(threads, queueSize);
+        int conversionThreads = Integer.parseInt(
+                Framework.getProperty(CONVERSION_THREADS_PROP, String.valueOf(DEFAULT_CONVERSION_THREADS)));
+        conversionEngine = new SigningEngine("Nuxeo-Signature-Convert", conversionThreads, 2 * conversionThreads);
+        signingPipeline = new SigningPipeline(conversionEngine, signingEngine);
+        int verifyThreads = Integer.parseInt(Framework.getProperty(VERIFY_THREADS_PROP,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        verificationEngine = new SigningEngine("Nuxeo-Signature-Verify", verifyThreads, 2 * verifyThreads);
+        pendingSignaturesCleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Nuxeo-Signature-Cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pendingSignaturesCleaner.scheduleWithFixedDelay(this::cleanUpPendingSignatures, PREPARED_CLEANUP_INTERVAL,
+                PREPARED_CLEANUP_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop(ComponentContext context) throws InterruptedException {
+        if (pendingSignaturesCleaner != null) {
+            pendingSignaturesCleaner.shutdownNow();
+            pendingSignaturesCleaner = null;
+        }
+        signingPipeline = null;
+        if (conversionEngine != null) {
+            conversionEngine.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            conversionEngine = null;
+        }
+        if (signingEngine != null) {
+            signingEngine.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            signingEngine = null;
+        }
+        if (verificationEngine != null) {
+            verificationEngine.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            verificationEngine = null;
+        }
+    }
+
     @Override
     public void registerContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
         if (XP_SIGNATURE.equals(extensionPoint)) {
             SignatureDescriptor signatureDescriptor = (SignatureDescriptor) contribution;
-            if (!signatureDescriptor.getRemoveExtension()) {
-                signatureRegistryMap.put(signatureDescriptor.getId(), signatureDescriptor);
-            } else {
-                signatureRegistryMap.remove(signatureDescriptor.getId());
+            synchronized (signatureRegistryMap) {
+                if (!signatureDescriptor.getRemoveExtension()) {
+                    signatureRegistryMap.put(signatureDescriptor.getId(), signatureDescriptor);
+                } else {
+                    signatureRegistryMap.remove(signatureDescriptor.getId());
+                }
+                configuration = null;
             }
         }
     }
@@ -137,7 +433,10 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
         if (XP_SIGNATURE.equals(extensionPoint)) {
             SignatureDescriptor signatureDescriptor = (SignatureDescriptor) contribution;
             if (!signatureDescriptor.getRemoveExtension()) {
-                signatureRegistryMap.remove(signatureDescriptor.getId());
+                synchronized (signatureRegistryMap) {
+                    signatureRegistryMap.remove(signatureDescriptor.getId());
+                    configuration = null;
+                }
             }
         }
     }
@@ -167,41 +466,78 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
         if (pdfBlob == null) {
             return UNSIGNED;
         }
-        List<X509Certificate> certificates = getCertificates(pdfBlob);
-        if (certificates.isEmpty()) {
+        try (PDFContext context = new PDFContext(pdfBlob)) {
+            return getSigningStatus(context, user);
+        }
+    }
+
+    /**
+     * @since 10.2
+     */
+    protected int getSigningStatus(PDFContext context, DocumentModel user) {
+        SignatureMetadata metadata = getSignatureMetadata(context);
+        if (metadata.getSignatureCount() == 0) {
             return UNSIGNED;
         }
         if (user == null) {
             return SIGNED_OTHER;
         }
-        String email = (String) user.getPropertyValue(USER_EMAIL);
-        if (StringUtils.isEmpty(email)) {
-            return SIGNED_OTHER;
-        }
-        CertService certService = Framework.getService(CertService.class);
-        for (X509Certificate certificate : certificates) {
-            String certEmail;
+        return getSigningStatus(metadata, (String) user.getPropertyValue("user:username"),
+                (String) user.getPropertyValue(USER_EMAIL));
+    }
+
+    /**
+     * Gets the signing status of a signed PDF for the given user.
+     *
+     * @since 10.2
+     */
+    protected int getSigningStatus(SignatureMetadata metadata, String userID, String email) {
+        // the user certificate is matched without unlocking the user keystore
+        X509Certificate certificate = null;
+        if (userID != null) {
             try {
-                certEmail = certService.getCertificateEmail(certificate);
+                certificate = getPublicCertificate(userID);
             } catch (CertException e) {
-                continue;
-            }
-            if (email.equals(certEmail)) {
-                return SIGNED_CURRENT;
+                // an unreadable certificate entry does not prevent matching the email
+                log.debug("Cannot read the public certificate of " + userID + ": " + e.getMessage(), e);
             }
         }
-        return SIGNED_OTHER;
+        if (certificate != null
+                && metadata.getFingerprints().contains(getCertService().getCertificateFingerprint(certificate))) {
+            return SIGNED_CURRENT;
+        }
+        // signed with another certificate issued to the same email, for instance before it was renewed
+        if (StringUtils.isEmpty(email)) {
+            return SIGNED_OTHER;
+        }
+        return metadata.getEmails().contains(email) ? SIGNED_CURRENT : SIGNED_OTHER;
     }
 
     /**
      * Finds the first signed PDF blob.
      */
     protected StatusWithBlob getSignedPdfBlobAndStatus(DocumentModel doc, DocumentModel user) {
+        Map<Blob, PDFContext> contexts = new IdentityHashMap<>();
+        try {
+            return getSignedPdfBlobAndStatus(doc, user, contexts);
+        } finally {
+            closeContexts(contexts);
+        }
+    }
+
+    /**
+     * Finds the first signed PDF blob, keeping the parsed PDFs in the given contexts so that the caller can reuse
+     * them.
+     *
+     * @since 10.2
+     */
+    protected StatusWithBlob getSignedPdfBlobAndStatus(DocumentModel doc, DocumentModel user,
+            Map<Blob, PDFContext> contexts) {
         BlobHolder mbh = doc.getAdapter(BlobHolder.class);
         if (mbh != null) {
             Blob blob = mbh.getBlob();
             if (blob != null && MIME_TYPE_PDF.equals(blob.getMimeType())) {
-                int status = getSigningStatus(blob, user);
+                int status = getSigningStatus(getContext(contexts, blob), user);
                 if (status != UNSIGNED) {
                     // TODO for File document it works, but for general
                     // blob holders the path may be incorrect
@@ -216,7 +552,7 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
             i++;
             Blob blob = (Blob) map.get(FILES_FILE);
             if (blob != null && MIME_TYPE_PDF.equals(blob.getMimeType())) {
-                int status = getSigningStatus(blob, user);
+                int status = getSigningStatus(getContext(contexts, blob), user);
                 if (status != UNSIGNED) {
                     String pathbase = FILES_FILES + "/" + i + "/";
                     String path = pathbase + FILES_FILE;
@@ -228,14 +564,186 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
         return null;
     }
 
+    /**
+     * Gets the context for a blob, creating it if needed.
+     *
+     * @since 10.2
+     */
+    protected PDFContext getContext(Map<Blob, PDFContext> contexts, Blob blob) {
+        return contexts.computeIfAbsent(blob, PDFContext::new);
+    }
+
+    /**
+     * @since 10.2
+     */
+    protected void closeContexts(Map<Blob, PDFContext> contexts) {
+        contexts.values().forEach(PDFContext::close);
+    }
+
     @Override
     public Blob signDocument(DocumentModel doc, DocumentModel user, String keyPassword, String reason, boolean pdfa,
             SigningDisposition disposition, String archiveFilename) {
+        try (Timer.Context timer = SignatureMetrics.SIGN.time()) {
+            // unlock the key first, a wrong password or a missing certificate must not cost a PDF conversion
+            SigningCredentials credentials = getSigningCredentials(user, keyPassword);
+            return signDocument(doc, user, credentials, reason, getSignatureAppearanceFactory(), pdfa, disposition,
+                    archiveFilename);
+        } catch (RuntimeException e) {
+            SignatureMetrics.failure(e);
+            throw e;
+        }
+    }
 
-        StatusWithBlob blobAndStatus = getSignedPdfBlobAndStatus(doc, user);
+    @Override
+    public List<SignatureResult> signDocuments(List<DocumentModel> docs, DocumentModel user, String keyPassword,
+            String reason, boolean pdfa, SigningDisposition disposition) {
+        // unlock the credentials and resolve the configuration once for the whole batch
+        SigningCredentials credentials = getSigningCredentials(user, keyPassword);
+        SignatureAppearanceFactory appearanceFactory = getSignatureAppearanceFactory();
+        String signingReason = StringUtils.isBlank(reason) ? getSigningReason() : reason;
+        // the sessions of the documents are bound to this thread, the pools only read already loaded properties
+        docs.forEach(this::loadBatchDocument);
+        user.getPropertyValue(USER_EMAIL);
+
+        // conversions and signatures of different documents run concurrently on their own pools
+        return signingPipeline.sign(docs, doc -> prepareBatchDocument(doc, user, pdfa),
+                (doc, prepared) -> signBatchDocument(doc, user, credentials, signingReason, appearanceFactory, pdfa,
+                        disposition, prepared));
+    }
+
+    @Override
+    public String signDocumentAsync(DocumentModel doc, DocumentModel user, String keyPassword, String reason,
+            boolean pdfa, SigningDisposition disposition, String archiveFilename) {
+        String userID = (String) user.getPropertyValue("user:username");
+        // the document is saved with the permissions of the requesting session
+        CoreSession session = doc.getCoreSession();
+        String originatingUsername = session == null ? userID : session.getPrincipal().getName();
+        SignatureWork work = new SignatureWork(doc.getRepositoryName(), doc.getId(), originatingUsername, userID,
+                keyPassword, reason, pdfa, disposition, archiveFilename);
+        SignatureWork.putStatus(work.getId(), originatingUsername, AsyncSigningStatus.State.SCHEDULED, null);
+        Framework.getService(WorkManager.class).schedule(work);
+        return work.getId();
+    }
+
+    @Override
+    public AsyncSigningStatus getAsyncSigningStatus(String signingId) {
+        return SignatureWork.getStatus(signingId);
+    }
+
+    /**
+     * A document of a batch whose PDFs are parsed and whose main blob is converted, ready to be signed.
+     *
+     * @since 10.2
+     */
+    protected static class BatchDocument {
+
+        protected final Map<Blob, PDFContext> contexts;
+
+        /** The PDF conversion of the main blob, or {@code null} if it does not need one. */
+        protected final Blob convertedPdf;
+
+        protected BatchDocument(Map<Blob, PDFContext> contexts, Blob convertedPdf) {
+            this.contexts = contexts;
+            this.convertedPdf = convertedPdf;
+        }
+    }
+
+    /**
+     * Loads the properties of a document of a batch that its signature reads, its main blob and its attached files, so
+     * that the signing threads never use the session of the document.
+     *
+     * @since 10.2
+     */
+    protected void loadBatchDocument(DocumentModel doc) {
+        BlobHolder mbh = doc.getAdapter(BlobHolder.class);
+        if (mbh != null) {
+            mbh.getBlob();
+        }
+        if (doc.hasSchema(FILES_SCHEMA)) {
+            doc.getPropertyValue(FILES_FILES);
+        }
+    }
+
+    /**
+     * Detects the signing status of a document of a batch and converts its main blob if it is to be signed for the
+     * first time.
+     *
+     * @since 10.2
+     */
+    protected BatchDocument prepareBatchDocument(DocumentModel doc, DocumentModel user, boolean pdfa) {
+        Map<Blob, PDFContext> contexts = new IdentityHashMap<>();
+        try {
+            Blob convertedPdf = null;
+            if (getSignedPdfBlobAndStatus(doc, user, contexts) == null) {
+                BlobHolder mbh = doc.getAdapter(BlobHolder.class);
+                Blob blob = mbh == null ? null : mbh.getBlob();
+                if (blob != null && !MIME_TYPE_PDF.equals(blob.getMimeType())) {
+                    convertedPdf = convertToPDFCached(blob, pdfa);
+                }
+            }
+            return new BatchDocument(contexts, convertedPdf);
+        } catch (RuntimeException e) {
+            closeContexts(contexts);
+            throw e;
+        }
+    }
+
+    /**
+     * Signs one prepared document of a batch, reporting a failure in the result instead of throwing it.
+     *
+     * @since 10.2
+     */
+    protected SignatureResult signBatchDocument(DocumentModel doc, DocumentModel user,
+            SigningCredentials credentials, String reason, SignatureAppearanceFactory appearanceFactory, boolean pdfa,
+            SigningDisposition disposition, BatchDocument prepared) {
+        try (Timer.Context timer = SignatureMetrics.SIGN.time()) {
+            BlobHolder mbh = doc.getAdapter(BlobHolder.class);
+            Blob originalBlob = mbh == null ? null : mbh.getBlob();
+            String archiveFilename = originalBlob == null ? null
+                    : SignatureHelper.getArchiveFilename(originalBlob.getFilename());
+            Blob signedBlob = signDocument(doc, user, credentials, reason, appearanceFactory, pdfa, disposition,
+                    archiveFilename, prepared.contexts, prepared.convertedPdf);
+            return new SignatureResult(doc, signedBlob, null);
+        } catch (SignException e) {
+            SignatureMetrics.failure(e);
+            log.debug("Cannot sign document " + doc.getId() + ": " + e.getMessage(), e);
+            return new SignatureResult(doc, null, e);
+        } finally {
+            closeContexts(prepared.contexts);
+        }
+    }
+
+    /**
+     * Signs a document with already unlocked credentials.
+     *
+     * @since 10.2
+     */
+    protected Blob signDocument(DocumentModel doc, DocumentModel user, SigningCredentials credentials,
+            String reason, SignatureAppearanceFactory appearanceFactory, boolean pdfa,
+            SigningDisposition disposition, String archiveFilename) {
+        // each PDF is parsed once for status detection and signing
+        Map<Blob, PDFContext> contexts = new IdentityHashMap<>();
+        try {
+            return signDocument(doc, user, credentials, reason, appearanceFactory, pdfa, disposition,
+                    archiveFilename, contexts, null);
+        } finally {
+            closeContexts(contexts);
+        }
+    }
+
+    /**
+     * @param convertedPdf the PDF conversion of the main blob if already done, or {@code null}
+     */
+    protected Blob signDocument(DocumentModel doc, DocumentModel user, SigningCredentials credentials,
+            String reason, SignatureAppearanceFactory appearanceFactory, boolean pdfa,
+            SigningDisposition disposition, String archiveFilename, Map<Blob, PDFContext> contexts,
+            Blob convertedPdf) {
+
+        StatusWithBlob blobAndStatus = getSignedPdfBlobAndStatus(doc, user, contexts);
         if (blobAndStatus != null) {
             // re-sign it
-            Blob signedBlob = signPDF(blobAndStatus.blob, doc, user, keyPassword, reason);
+            Blob signedBlob = signPDF(getContext(contexts, blobAndStatus.blob), doc, credentials, reason,
+                    appearanceFactory);
             signedBlob.setFilename(blobAndStatus.blob.getFilename());
             // replace the previous blob with a new one
             blobAndStatus.blobHolder.setBlob(signedBlob);
@@ -251,23 +759,13 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
         Blob pdfBlob;
         if (MIME_TYPE_PDF.equals(originalBlob.getMimeType())) {
             pdfBlob = originalBlob;
+        } else if (convertedPdf != null) {
+            pdfBlob = convertedPdf;
         } else {
-            // convert to PDF or PDF/A first
-            ConversionService conversionService = Framework.getService(ConversionService.class);
-            Map<String, Serializable> parameters = new HashMap<>();
-            if (pdfa) {
-                parameters.put(PDFA1_PARAM, Boolean.TRUE);
-            }
-            try {
-                BlobHolder holder = conversionService.convert("any2pdf", new SimpleBlobHolder(originalBlob),
-                        parameters);
-                pdfBlob = holder.getBlob();
-            } catch (ConversionException conversionException) {
-                throw new SignException(conversionException);
-            }
+            pdfBlob = convertToPDFCached(originalBlob, pdfa);
         }
 
-        Blob signedBlob = signPDF(pdfBlob, doc, user, keyPassword, reason);
+        Blob signedBlob = signPDF(getContext(contexts, pdfBlob), doc, credentials, reason, appearanceFactory);
         signedBlob.setFilename(FilenameUtils.getBaseName(originalBlob.getFilename()) + ".pdf");
 
         Map<String, Serializable> map;
@@ -301,92 +799,390 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
         return signedBlob;
     }
 
+    /**
+     * Converts a blob to PDF or PDF/A, reusing a previous conversion of the same content.
+     *
+     * @since 10.2
+     */
+    protected Blob convertToPDFCached(Blob blob, boolean pdfa) throws SignException {
+        if (conversionCache == null) {
+            return convertToPDF(blob, pdfa);
+        }
+        return conversionCache.convert(blob, pdfa, b -> convertToPDF(b, pdfa));
+    }
+
+    /**
+     * Converts a blob to PDF or PDF/A.
+     *
+     * @since 10.2
+     */
+    protected Blob convertToPDF(Blob blob, boolean pdfa) throws SignException {
+        ConversionService conversionService = Framework.getService(ConversionService.class);
+        Map<String, Serializable> parameters = new HashMap<>();
+        if (pdfa) {
+            parameters.put(PDFA1_PARAM, Boolean.TRUE);
+        }
+        try (Timer.Context timer = SignatureMetrics.CONVERSION.time()) {
+            BlobHolder holder = conversionService.convert("any2pdf", new SimpleBlobHolder(blob), parameters);
+            return holder.getBlob();
+        } catch (ConversionException conversionException) {
+            throw new SignException(conversionException);
+        }
+    }
+
     @Override
     public Blob signPDF(Blob pdfBlob, DocumentModel doc, DocumentModel user, String keyPassword, String reason) {
-        CertService certService = Framework.getService(CertService.class);
+        try (Timer.Context timer = SignatureMetrics.SIGN.time(); PDFContext context = new PDFContext(pdfBlob)) {
+            return signPDF(context, doc, getSigningCredentials(user, keyPassword), reason,
+                    getSignatureAppearanceFactory());
+        } catch (RuntimeException e) {
+            SignatureMetrics.failure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Unlocks the signing key and certificate of a user.
+     *
+     * @since 10.2
+     */
+    protected SigningCredentials getSigningCredentials(DocumentModel user, String keyPassword) throws CertException {
         CUserService cUserService = Framework.getService(CUserService.class);
+        String userID = (String) user.getPropertyValue("user:username");
+        PrivateKeyEntry credential;
+        try (Timer.Context timer = SignatureMetrics.CREDENTIALS.time()) {
+            credential = cUserService.getUserCredential(userID, keyPassword);
+        }
+        X509Certificate certificate = (X509Certificate) credential.getCertificate();
+        KeyPair keyPair = new KeyPair(certificate.getPublicKey(), credential.getPrivateKey());
+        return new SigningCredentials(userID, certificate, keyPair);
+    }
+
+    /**
+     * Signs the PDF of the given context, reusing its already parsed reader and certificates.
+     *
+     * @since 10.2
+     */
+    protected Blob signPDF(PDFContext context, DocumentModel doc, SigningCredentials credentials, String reason,
+            SignatureAppearanceFactory appearanceFactory) {
+        if (!SELF_SIGNED_KEY_ALGORITHM.equals(credentials.getKeyPair().getPrivate().getAlgorithm())) {
+            return signPDFDetached(context, doc, credentials, reason, appearanceFactory);
+        }
         try {
-            File outputFile = Framework.createTempFile("signed-", ".pdf");
-            Blob blob = Blobs.createBlob(outputFile, MIME_TYPE_PDF);
-            Framework.trackFile(outputFile, blob);
+            PdfReader pdfReader = context.getReader();
+            List<X509Certificate> pdfCertificates = getCertificates(context);
+
+            X509Certificate certificate = credentials.getCertificate();
+            if (certificatePresentInPDF(certificate, pdfCertificates)) {
+                String message = ALREADY_SIGNED_BY + certificate.getSubjectDN();
+                log.debug(message);
+                throw new AlreadySignedException(message);
+            }
 
-            PdfReader pdfReader = new PdfReader(pdfBlob.getStream());
-            List<X509Certificate> pdfCertificates = getCertificates(pdfReader);
+            Blob blob = createOutputBlob();
+            File outputFile = blob.getFile();
 
-            // allows for multiple signatures
-            PdfStamper pdfStamper = PdfStamper.createSignature(pdfReader, new FileOutputStream(outputFile), '\0', null,
-                    true);
+            PdfStamper pdfStamper;
+            try (Timer.Context timer = SignatureMetrics.STAMP.time()) {
+                // allows for multiple signatures
+                // the output file is used directly as the stamper's work file, the result is not buffered in memory
+                pdfStamper = PdfStamper.createSignature(pdfReader, null, '\0', outputFile, true);
+
+                PdfSignatureAppearance pdfSignatureAppearance = pdfStamper.getSignatureAppearance();
+                pdfSignatureAppearance.setCrypto(credentials.getKeyPair().getPrivate(), certificate, null,
+                        PdfSignatureAppearance.SELF_SIGNED);
+                if (StringUtils.isBlank(reason)) {
+                    reason = getSigningReason();
+                }
+                pdfSignatureAppearance.setVisibleSignature(getNextCertificatePosition(pdfReader, pdfCertificates), 1,
+                        null);
+                appearanceFactory.format(pdfSignatureAppearance, doc, credentials.getUserID(), reason);
+            }
+
+            try (Timer.Context timer = SignatureMetrics.WRITE.time()) {
+                pdfStamper.close(); // signs and closes the file
+            }
 
-            String userID = (String) user.getPropertyValue("user:username");
-            AliasWrapper alias = new AliasWrapper(userID);
-            KeyStore keystore = cUserService.getUserKeystore(userID, keyPassword);
-            Certificate certificate = certService.getCertificate(keystore, alias.getId(AliasType.CERT));
-            KeyPair keyPair = certService.getKeyPair(keystore, alias.getId(AliasType.KEY), alias.getId(AliasType.CERT),
-                    keyPassword);
+            log.debug("File " + outputFile.getAbsolutePath() + " created and signed with " + reason);
+
+            return blob;
+        } catch (IOException | DocumentException e) {
+            throw new SignException(e);
+        } catch (IllegalArgumentException e) {
+            if (String.valueOf(e.getMessage()).contains("PdfReader not opened with owner password")) {
+                // iText PDF reading
+                throw new SignException("PDF is password-protected");
+            }
+            throw new SignException(e);
+        }
+    }
+
+    /**
+     * Signs the PDF of the given context with a detached CMS signature, for keys that the stamper cannot sign with
+     * itself.
+     *
+     * @since 10.2
+     */
+    protected Blob signPDFDetached(PDFContext context, DocumentModel doc, SigningCredentials credentials,
+            String reason, SignatureAppearanceFactory appearanceFactory) {
+        PendingSignature pending;
+        try (Timer.Context timer = SignatureMetrics.STAMP.time()) {
+            pending = stampDetached(context, doc, credentials.getUserID(), credentials.getCertificate(), reason,
+                    appearanceFactory);
+        }
+        boolean signed = false;
+        try {
+            byte[] signature = CMSSigner.sign(pending.digest, credentials.getKeyPair().getPrivate(),
+                    credentials.getCertificate());
+            try (Timer.Context timer = SignatureMetrics.WRITE.time()) {
+                insertSignature(pending, signature);
+            }
+            signed = true;
+            log.debug("File " + pending.blob.getFile().getAbsolutePath() + " created and signed");
+            return pending.blob;
+        } finally {
+            if (!signed) {
+                pending.release();
+            }
+        }
+    }
+
+    @Override
+    public PreparedSignature prepareSignature(Blob pdfBlob, DocumentModel doc, DocumentModel user,
+            X509Certificate certificate, String reason) {
+        String userID = (String) user.getPropertyValue("user:username");
+        PDFContext context = new PDFContext(pdfBlob);
+        boolean prepared = false;
+        try {
+            PendingSignature pending = stampDetached(context, doc, userID, certificate, reason,
+                    getSignatureAppearanceFactory());
+            PreparedSignature preparedSignature = new PreparedSignature(UUID.randomUUID().toString(), pending.digest,
+                    pending.digestAlgorithm);
+            pendingSignatures.put(preparedSignature.getId(), pending);
+            prepared = true;
+            log.debug("File " + pending.blob.getFile().getAbsolutePath() + " prepared for signature "
+                    + preparedSignature.getId());
+            return preparedSignature;
+        } finally {
+            if (!prepared) {
+                context.close();
+            }
+        }
+    }
 
+    /**
+     * Writes the signature dictionary of the PDF of the given context with room reserved for a detached CMS signature,
+     * and digests the byte ranges to be signed with the algorithm matching the certificate key.
+     * <p>
+     * The context stays owned by the caller; the output file is deleted if the PDF cannot be prepared.
+     *
+     * @since 10.2
+     */
+    protected PendingSignature stampDetached(PDFContext context, DocumentModel doc, String userID,
+            X509Certificate certificate, String reason, SignatureAppearanceFactory appearanceFactory) {
+        Blob blob = null;
+        boolean prepared = false;
+        try {
+            PdfReader pdfReader = context.getReader();
+            List<X509Certificate> pdfCertificates = getCertificates(context);
             if (certificatePresentInPDF(certificate, pdfCertificates)) {
-                X509Certificate userX509Certificate = (X509Certificate) certificate;
-                String message = ALREADY_SIGNED_BY + userX509Certificate.getSubjectDN();
+                String message = ALREADY_SIGNED_BY + certificate.getSubjectDN();
                 log.debug(message);
                 throw new AlreadySignedException(message);
             }
 
+            blob = createOutputBlob();
+            File outputFile = blob.getFile();
+            PdfStamper pdfStamper = PdfStamper.createSignature(pdfReader, null, '\0', outputFile, true);
+
             PdfSignatureAppearance pdfSignatureAppearance = pdfStamper.getSignatureAppearance();
-            pdfSignatureAppearance.setCrypto(keyPair.getPrivate(), (X509Certificate) certificate, null, PdfSignatureAppearance.SELF_SIGNED);
+            // no private key: the signature is computed outside and inserted at completion
+            pdfSignatureAppearance.setCrypto(null, certificate, null, PdfSignatureAppearance.WINCER_SIGNED);
             if (StringUtils.isBlank(reason)) {
                 reason = getSigningReason();
             }
             pdfSignatureAppearance.setVisibleSignature(getNextCertificatePosition(pdfReader, pdfCertificates), 1, null);
-            getSignatureAppearanceFactory().format(pdfSignatureAppearance, doc, userID, reason);
+            appearanceFactory.format(pdfSignatureAppearance, doc, userID, reason);
 
-            pdfStamper.close(); // closes the file
+            PdfSignature signatureDictionary = new PdfSignature(PdfName.ADOBE_PPKLITE, PdfName.ADBE_PKCS7_DETACHED);
+            signatureDictionary.setReason(pdfSignatureAppearance.getReason());
+            signatureDictionary.setLocation(pdfSignatureAppearance.getLocation());
+            signatureDictionary.setContact(pdfSignatureAppearance.getContact());
+            signatureDictionary.setDate(new PdfDate(pdfSignatureAppearance.getSignDate()));
+            signatureDictionary.setName(PdfPKCS7.getSubjectFields(certificate).getField("CN"));
+            pdfSignatureAppearance.setCryptoDictionary(signatureDictionary);
 
-            log.debug("File " + outputFile.getAbsolutePath() + " created and signed with " + reason);
+            // hex-encoded contents plus delimiters
+            HashMap<PdfName, Integer> exclusions = new HashMap<>();
+            exclusions.put(PdfName.CONTENTS, Integer.valueOf(RESERVED_SIGNATURE_SIZE * 2 + 2));
+            pdfSignatureAppearance.preClose(exclusions);
 
-            return blob;
-        } catch (IOException | DocumentException | InstantiationException | IllegalAccessException e) {
+            String digestAlgorithm = CMSSigner.getDigestAlgorithm(certificate.getPublicKey().getAlgorithm());
+            MessageDigest messageDigest = MessageDigest.getInstance(digestAlgorithm);
+            try (InputStream in = pdfSignatureAppearance.getRangeStream()) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    messageDigest.update(buffer, 0, n);
+                }
+            }
+            prepared = true;
+            return new PendingSignature(context, pdfSignatureAppearance, blob, messageDigest.digest(),
+                    digestAlgorithm);
+        } catch (IOException | DocumentException | NoSuchAlgorithmException e) {
             throw new SignException(e);
-        } catch (IllegalArgumentException e) {
-            if (String.valueOf(e.getMessage()).contains("PdfReader not opened with owner password")) {
-                // iText PDF reading
-                throw new SignException("PDF is password-protected");
+        } finally {
+            if (!prepared && blob != null) {
+                blob.getFile().delete();
             }
+        }
+    }
+
+    /**
+     * Inserts a detached CMS signature in the room reserved for it, and closes the output file.
+     *
+     * @since 10.2
+     */
+    protected void insertSignature(PendingSignature pending, byte[] signature) {
+        if (signature.length > RESERVED_SIGNATURE_SIZE) {
+            throw new SignException("Signature of " + signature.length + " bytes exceeds the reserved "
+                    + RESERVED_SIGNATURE_SIZE + " bytes");
+        }
+        byte[] contents = new byte[RESERVED_SIGNATURE_SIZE];
+        System.arraycopy(signature, 0, contents, 0, signature.length);
+        PdfDictionary update = new PdfDictionary();
+        update.put(PdfName.CONTENTS, new PdfString(contents).setHexWriting(true));
+        try {
+            pending.appearance.close(update); // closes the file
+        } catch (IOException | DocumentException e) {
             throw new SignException(e);
         }
     }
 
+    @Override
+    public Blob completeSignature(PreparedSignature preparedSignature, byte[] signature) {
+        PendingSignature pending = pendingSignatures.asMap().remove(preparedSignature.getId());
+        if (pending == null) {
+            throw new SignException("Unknown or expired prepared signature: " + preparedSignature.getId());
+        }
+        boolean completed = false;
+        try {
+            insertSignature(pending, signature);
+            completed = true;
+            log.debug("File " + pending.blob.getFile().getAbsolutePath() + " signed for "
+                    + preparedSignature.getId());
+            return pending.blob;
+        } finally {
+            if (!completed) {
+                pending.release();
+            }
+            pending.context.close();
+        }
+    }
+
+    @Override
+    public Blob completeSignature(PreparedSignature preparedSignature, PrivateKeyEntry credential) {
+        byte[] signature;
+        try {
+            signature = CMSSigner.sign(preparedSignature.getDigest(), credential.getPrivateKey(),
+                    (X509Certificate) credential.getCertificate());
+        } catch (SignException e) {
+            cancelSignature(preparedSignature);
+            throw e;
+        }
+        return completeSignature(preparedSignature, signature);
+    }
+
+    @Override
+    public void cancelSignature(PreparedSignature preparedSignature) {
+        PendingSignature pending = pendingSignatures.asMap().remove(preparedSignature.getId());
+        if (pending != null) {
+            pending.discard();
+        }
+    }
+
+    /**
+     * Discards the expired prepared signatures, releasing their PDF and file.
+     *
+     * @since 10.2
+     */
+    protected void cleanUpPendingSignatures() {
+        Cache<String, PendingSignature> cache = pendingSignatures;
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.cleanUp();
+        } catch (RuntimeException e) {
+            // an exception would cancel the next sweeps
+            log.error("Cannot discard expired prepared signatures", e);
+        }
+    }
+
+    /**
+     * Discards the prepared signatures that expired or were dropped, explicit removals are handled by the caller.
+     *
+     * @since 10.2
+     */
+    protected void onPendingSignatureRemoval(RemovalNotification<String, PendingSignature> notification) {
+        if (notification.wasEvicted()) {
+            log.debug("Discarding expired prepared signature " + notification.getKey());
+            notification.getValue().discard();
+        }
+    }
+
+    /**
+     * Creates the blob receiving a signed PDF, written in place by the stamper.
+     * <p>
+     * The blob is backed by a temporary file, which the binary manager moves into the blob store when the document is
+     * saved instead of copying it.
+     *
+     * @since 10.2
+     */
+    protected Blob createOutputBlob() throws IOException {
+        Blob blob = Blobs.createBlobWithExtension(".pdf");
+        blob.setMimeType(MIME_TYPE_PDF);
+        return blob;
+    }
+
     /**
      * @since 5.8
      * @return the signature layout. Default one if no contribution.
      */
     @Override
     public SignatureLayout getSignatureLayout() {
-        for (SignatureDescriptor signatureDescriptor : signatureRegistryMap.values()) {
-            SignatureLayout signatureLayout = signatureDescriptor.getSignatureLayout();
-            if (signatureLayout != null) {
-                return signatureLayout;
+        return getConfiguration().getLayout();
+    }
+
+    /**
+     * Gets the configuration resolved from the current contributions, resolving it again after a change.
+     *
+     * @since 10.2
+     */
+    protected SignatureConfiguration getConfiguration() throws SignException {
+        SignatureConfiguration config = configuration;
+        if (config == null) {
+            synchronized (signatureRegistryMap) {
+                config = configuration;
+                if (config == null) {
+                    config = SignatureConfiguration.compile(signatureRegistryMap.values());
+                    configuration = config;
+                }
             }
         }
-        return new SignatureDescriptor.SignatureLayout();
+        return config;
     }
 
-    protected SignatureAppearanceFactory getSignatureAppearanceFactory()
-            throws InstantiationException, IllegalAccessException {
-        if (!signatureRegistryMap.isEmpty()) {
-            SignatureDescriptor signatureDescriptor = signatureRegistryMap.values().iterator().next();
-            return signatureDescriptor.getAppearanceFatory();
-        }
-        return new DefaultSignatureAppearanceFactory();
+    protected SignatureAppearanceFactory getSignatureAppearanceFactory() throws SignException {
+        return getConfiguration().getAppearanceFactory();
     }
 
     protected String getSigningReason() throws SignException {
-        for (SignatureDescriptor sd : signatureRegistryMap.values()) {
-            String reason = sd.getReason();
-            if (!StringUtils.isBlank(reason)) {
-                return reason;
-            }
+        String reason = getConfiguration().getReason();
+        if (reason == null) {
+            throw new SignException("No default signing reason provided in configuration");
         }
-        throw new SignException("No default signing reason provided in configuration");
+        return reason;
     }
 
     protected boolean certificatePresentInPDF(Certificate userCert, List<X509Certificate> pdfCertificates)
@@ -417,20 +1213,23 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
         float height = pageSize.getHeight();
 
         // Signature size
-        float rectangleWidth = width / getSignatureLayout().getColumns();
-        float rectangeHeight = height / getSignatureLayout().getLines();
+        SignatureLayout layout = getSignatureLayout();
+        int columns = layout.getColumns();
+        int lines = layout.getLines();
+        float rectangleWidth = width / columns;
+        float rectangeHeight = height / lines;
 
         // Signature location
-        int column = numberOfSignatures % getSignatureLayout().getColumns() + getSignatureLayout().getStartColumn();
-        int line = numberOfSignatures / getSignatureLayout().getColumns() + getSignatureLayout().getStartLine();
-        if (column > getSignatureLayout().getColumns()) {
-            column = column % getSignatureLayout().getColumns();
+        int column = numberOfSignatures % columns + layout.getStartColumn();
+        int line = numberOfSignatures / columns + layout.getStartLine();
+        if (column > columns) {
+            column = column % columns;
             line++;
         }
 
         // Skip rectangle display If number of signatures exceed free locations
         // on pdf layout
-        if (line > getSignatureLayout().getLines()) {
+        if (line > lines) {
             return new Rectangle(0, 0, 0, 0);
         }
 
@@ -492,18 +1291,85 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
     }
 
     protected List<X509Certificate> getCertificates(Blob pdfBlob) throws SignException {
-        try {
-            PdfReader pdfReader = new PdfReader(pdfBlob.getStream());
-            return getCertificates(pdfReader);
-        } catch (IOException e) {
-            String message = "";
-            if (e.getMessage().equals("PDF header signature not found.")) {
-                message = "PDF seems to be corrupted";
+        try (PDFContext context = new PDFContext(pdfBlob)) {
+            return getCertificates(context);
+        }
+    }
+
+    /**
+     * Gets the certificates of the PDF, extracting them only once per context.
+     *
+     * @since 10.2
+     */
+    protected List<X509Certificate> getCertificates(PDFContext context) throws SignException {
+        return getSignatureMetadata(context).getCertificates();
+    }
+
+    /**
+     * Gets the metadata about the signatures of the PDF, from the cache if the blob has a digest.
+     *
+     * @since 10.2
+     */
+    protected SignatureMetadata getSignatureMetadata(PDFContext context) throws SignException {
+        if (context.metadata == null) {
+            String digest = context.getBlob().getDigest();
+            SignatureMetadata metadata = digest == null ? null : metadataCache.getIfPresent(digest);
+            if (metadata == null) {
+                metadata = computeSignatureMetadata(context);
+                if (digest != null) {
+                    metadataCache.put(digest, metadata);
+                }
             }
-            throw new SignException(message, e);
+            context.metadata = metadata;
         }
+        return context.metadata;
     }
 
+    /**
+     * @since 10.2
+     */
+    protected SignatureMetadata computeSignatureMetadata(PDFContext context) throws SignException {
+        PdfReader pdfReader = context.getReader();
+        List<X509Certificate> certificates;
+        try (Timer.Context timer = SignatureMetrics.SIGNERS.time()) {
+            certificates = getSignerCertificates(pdfReader);
+        }
+        List<String> emails = new ArrayList<>(certificates.size());
+        List<String> fingerprints = new ArrayList<>(certificates.size());
+        CertService certService = getCertService();
+        for (X509Certificate certificate : certificates) {
+            fingerprints.add(certService.getCertificateFingerprint(certificate));
+            String email;
+            try {
+                email = certService.getCertificateEmail(certificate);
+            } catch (CertException e) {
+                continue;
+            }
+            if (email != null) {
+                emails.add(email);
+            }
+        }
+        return new SignatureMetadata(certificates, emails, fingerprints);
+    }
+
+    /**
+     * @since 10.2
+     */
+    protected CertService getCertService() {
+        return Framework.getService(CertService.class);
+    }
+
+    /**
+     * @since 10.2
+     */
+    protected X509Certificate getPublicCertificate(String userID) {
+        return Framework.getService(CUserService.class).getPublicCertificate(userID);
+    }
+
+    /**
+     * Gets the signing certificates of the PDF, verifying each signature. This digests the byte range covered by every
+     * signature, so its cost grows with the file size.
+     */
     protected List<X509Certificate> getCertificates(PdfReader pdfReader) throws SignException {
         List<X509Certificate> pdfCertificates = new ArrayList<>();
         AcroFields acroFields = pdfReader.getAcroFields();
@@ -517,4 +1383,205 @@ public class SignatureServiceImpl extends DefaultComponent implements SignatureS
         return pdfCertificates;
     }
 
+    @Override
+    public List<SignatureVerification> verifySignatures(Blob pdfBlob) {
+        try (PDFContext context = new PDFContext(pdfBlob)) {
+            AcroFields acroFields = context.getReader().getAcroFields();
+            // the signed ranges are read from the file the reader was opened on
+            File pdfFile = context.getFile();
+            @SuppressWarnings("unchecked")
+            List<String> signatureNames = acroFields.getSignatureNames();
+            List<Callable<SignatureVerification>> tasks = new ArrayList<>(signatureNames.size());
+            for (String signatureName : signatureNames) {
+                // decode everything needing the shared reader first, the tasks only read the signed ranges
+                int revision = acroFields.getRevision(signatureName);
+                boolean coversWholeDocument = acroFields.signatureCoversWholeDocument(signatureName);
+                PdfPKCS7 pdfPKCS7 = null;
+                CMSVerifier.SignerData signerData = null;
+                int[] byteRange;
+                try {
+                    byteRange = getByteRange(acroFields.getSignatureDictionary(signatureName));
+                    try {
+                        pdfPKCS7 = decodeSignature(acroFields, signatureName);
+                    } catch (RuntimeException e) {
+                        // algorithms that PdfPKCS7 does not know, such as Ed25519
+                        log.debug("Verifying signature " + signatureName + " as plain CMS", e);
+                        signerData = CMSVerifier.decode(getSignatureContents(acroFields, signatureName));
+                    }
+                } catch (RuntimeException e) {
+                    SignatureVerification verification = new SignatureVerification(signatureName, false, null, null,
+                            coversWholeDocument, revision, "Cannot decode signature: " + e.getMessage());
+                    tasks.add(() -> verification);
+                    continue;
+                }
+                if (pdfPKCS7 != null) {
+                    PdfPKCS7 decoded = pdfPKCS7;
+                    tasks.add(() -> verifySignature(pdfFile, signatureName, decoded, byteRange, coversWholeDocument,
+                            revision));
+                } else {
+                    CMSVerifier.SignerData decoded = signerData;
+                    tasks.add(() -> verifySignature(pdfFile, signatureName, decoded, byteRange, coversWholeDocument,
+                            revision));
+                }
+            }
+            return verificationEngine.invokeAll(tasks);
+        } catch (IOException e) {
+            throw new SignException(e);
+        }
+    }
+
+    /**
+     * @since 10.2
+     */
+    protected int[] getByteRange(PdfDictionary signatureDictionary) throws SignException {
+        PdfArray ranges = signatureDictionary.getAsArray(PdfName.BYTERANGE);
+        if (ranges == null) {
+            throw new SignException("Missing byte range");
+        }
+        int[] byteRange = new int[ranges.size()];
+        for (int i = 0; i < byteRange.length; i++) {
+            byteRange[i] = ranges.getAsNumber(i).intValue();
+        }
+        return byteRange;
+    }
+
+    /**
+     * Verifies a decoded signature against its signed byte ranges, read through a mapping of its own.
+     *
+     * @since 10.2
+     */
+    protected SignatureVerification verifySignature(File pdfFile, String signatureName, PdfPKCS7 pdfPKCS7,
+            int[] byteRange, boolean coversWholeDocument, int revision) {
+        X509Certificate certificate = pdfPKCS7.getSigningCertificate();
+        Calendar signDate = pdfPKCS7.getSignDate();
+        try {
+            CMSVerifier.readByteRanges(pdfFile, byteRange, pdfPKCS7::update);
+            boolean valid = pdfPKCS7.verify();
+            return new SignatureVerification(signatureName, valid, certificate, signDate, coversWholeDocument,
+                    revision, null);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            log.debug("Cannot verify signature " + signatureName, e);
+            return new SignatureVerification(signatureName, false, certificate, signDate, coversWholeDocument,
+                    revision, e.getMessage());
+        }
+    }
+
+    /**
+     * Verifies a signature decoded as plain CMS against its signed byte ranges.
+     *
+     * @since 10.2
+     */
+    protected SignatureVerification verifySignature(File pdfFile, String signatureName,
+            CMSVerifier.SignerData signerData, int[] byteRange, boolean coversWholeDocument, int revision) {
+        X509Certificate certificate = signerData.getCertificate();
+        Calendar signDate = signerData.getSignDate();
+        try {
+            boolean valid = CMSVerifier.verify(signerData, pdfFile, byteRange);
+            return new SignatureVerification(signatureName, valid, certificate, signDate, coversWholeDocument,
+                    revision, null);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cannot verify signature " + signatureName, e);
+            return new SignatureVerification(signatureName, false, certificate, signDate, coversWholeDocument,
+                    revision, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the signing certificates of the PDF without verifying the signatures. Only the PKCS#7 {@code /Contents} of
+     * each signature is decoded, the signed byte ranges are not digested, so the cost depends on the number of
+     * signatures and not on the file size.
+     * <p>
+     * Signatures that cannot be decoded are skipped.
+     *
+     * @since 10.2
+     */
+    protected List<X509Certificate> getSignerCertificates(PdfReader pdfReader) throws SignException {
+        List<X509Certificate> pdfCertificates = new ArrayList<>();
+        AcroFields acroFields = pdfReader.getAcroFields();
+        @SuppressWarnings("unchecked")
+        List<String> signatureNames = acroFields.getSignatureNames();
+        for (String signatureName : signatureNames) {
+            X509Certificate certificate;
+            try {
+                certificate = getSignerCertificate(acroFields, signatureName);
+            } catch (RuntimeException e) {
+                log.warn("Ignoring signature " + signatureName + " that cannot be decoded: " + e.getMessage());
+                log.debug(e, e);
+                continue;
+            }
+            pdfCertificates.add(certificate);
+        }
+        return pdfCertificates;
+    }
+
+    /**
+     * Gets the signing certificate of a signature field, falling back to plain CMS decoding for the signature
+     * algorithms that PdfPKCS7 does not know, such as Ed25519.
+     *
+     * @since 10.2
+     */
+    protected X509Certificate getSignerCertificate(AcroFields acroFields, String signatureName) throws SignException {
+        try {
+            return decodeSignature(acroFields, signatureName).getSigningCertificate();
+        } catch (RuntimeException e) {
+            log.debug("Decoding signature " + signatureName + " as plain CMS", e);
+            return CMSVerifier.decode(getSignatureContents(acroFields, signatureName)).getCertificate();
+        }
+    }
+
+    /**
+     * Gets the raw {@code /Contents} of a signature field.
+     *
+     * @since 10.2
+     */
+    protected byte[] getSignatureContents(AcroFields acroFields, String signatureName) throws SignException {
+        PdfDictionary signatureDictionary = acroFields.getSignatureDictionary(signatureName);
+        PdfString contents = signatureDictionary == null ? null : signatureDictionary.getAsString(PdfName.CONTENTS);
+        if (contents == null) {
+            throw new SignException("Missing signature contents for " + signatureName);
+        }
+        return contents.getOriginalBytes();
+    }
+
+    /**
+     * Decodes the PKCS#7 of a signature field, like {@link AcroFields#verifySignature} does but without feeding the
+     * signed byte ranges to the digest.
+     *
+     * @since 10.2
+     */
+    protected PdfPKCS7 decodeSignature(AcroFields acroFields, String signatureName) throws SignException {
+        PdfDictionary signatureDictionary = acroFields.getSignatureDictionary(signatureName);
+        if (signatureDictionary == null) {
+            throw new SignException("Missing signature dictionary for " + signatureName);
+        }
+        PdfString contents = signatureDictionary.getAsString(PdfName.CONTENTS);
+        PdfPKCS7 pdfPKCS7;
+        if (PdfName.ADBE_X509_RSA_SHA1.equals(signatureDictionary.getAsName(PdfName.SUBFILTER))) {
+            PdfString cert = signatureDictionary.getAsString(PdfName.CERT);
+            pdfPKCS7 = new PdfPKCS7(contents.getOriginalBytes(), cert.getBytes(), null);
+        } else {
+            pdfPKCS7 = new PdfPKCS7(contents.getOriginalBytes(), null);
+        }
+        // the signing time, name, reason and location are in the dictionary, not in the PKCS#7
+        PdfString value = signatureDictionary.getAsString(PdfName.M);
+        if (value != null) {
+            pdfPKCS7.setSignDate(PdfDate.decode(value.toString()));
+        }
+        PdfObject name = PdfReader.getPdfObject(signatureDictionary.get(PdfName.NAME));
+        if (name != null && name.isString()) {
+            pdfPKCS7.setSignName(((PdfString) name).toUnicodeString());
+        } else if (name != null && name.isName()) {
+            pdfPKCS7.setSignName(PdfName.decodeName(name.toString()));
+        }
+        value = signatureDictionary.getAsString(PdfName.REASON);
+        if (value != null) {
+            pdfPKCS7.setReason(value.toUnicodeString());
+        }
+        value = signatureDictionary.getAsString(PdfName.LOCATION);
+        if (value != null) {
+            pdfPKCS7.setLocation(value.toUnicodeString());
+        }
+        return pdfPKCS7;
+    }
+
 }
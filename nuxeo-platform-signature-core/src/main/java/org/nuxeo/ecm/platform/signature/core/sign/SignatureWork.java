@@ -0,0 +1,218 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.event.DocumentEventCategories;
+import org.nuxeo.ecm.core.event.EventProducer;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.ecm.platform.signature.api.exception.SignException;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.AsyncSigningStatus;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.AsyncSigningStatus.State;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SigningDisposition;
+import org.nuxeo.ecm.platform.usermanager.UserManager;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.kv.KeyValueService;
+import org.nuxeo.runtime.kv.KeyValueStore;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Signs and saves a document in the background, recording its progress in a key/value store.
+ * <p>
+ * The work id is the signing id returned to the caller.
+ *
+ * @since 10.2
+ */
+public class SignatureWork extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log log = LogFactory.getLog(SignatureWork.class);
+
+    public static final String CATEGORY = "signature";
+
+    protected static final String TITLE = "Document Signature";
+
+    /** Same event as the one sent when signing from the UI, for the audit. */
+    public static final String DOCUMENT_SIGNED = "documentSigned";
+
+    public static final String DOCUMENT_SIGNED_COMMENT = "PDF signed";
+
+    public static final String STATUS_STORE_NAME = "signature";
+
+    /** Time in seconds during which the outcome of a signature can be polled. */
+    protected static final long STATUS_TTL = 24 * 3600;
+
+    protected static final String STATUS_SEP = ":";
+
+    /** Suffix of the key under which the user who requested a signature is stored. */
+    protected static final String STATUS_USERNAME_SUFFIX = STATUS_SEP + "username";
+
+    protected final String userID;
+
+    /** Never persisted with the work. */
+    protected transient String keyPassword;
+
+    protected final String reason;
+
+    protected final boolean pdfa;
+
+    protected final SigningDisposition disposition;
+
+    protected final String archiveFilename;
+
+    /**
+     * @param originatingUsername the user whose session is used to load and save the document
+     * @param userID the signing user
+     */
+    public SignatureWork(String repositoryName, String docId, String originatingUsername, String userID,
+            String keyPassword, String reason, boolean pdfa, SigningDisposition disposition, String archiveFilename) {
+        setDocument(repositoryName, docId);
+        setOriginatingUsername(originatingUsername);
+        this.userID = userID;
+        this.keyPassword = keyPassword;
+        this.reason = reason;
+        this.pdfa = pdfa;
+        this.disposition = disposition;
+        this.archiveFilename = archiveFilename;
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return TITLE;
+    }
+
+    @Override
+    public void work() {
+        if (keyPassword == null) {
+            // the password is never persisted: a work that was persisted or requeued cannot sign
+            putStatus(getId(), getOriginatingUsername(), State.FAILED,
+                    "The key password was lost when the signature was persisted");
+            setStatus("Failed");
+            return;
+        }
+        setStatus("Signing");
+        putStatus(getId(), getOriginatingUsername(), State.RUNNING, null);
+        try {
+            openUserSession();
+            DocumentModel doc = session.getDocument(new IdRef(docId));
+            DocumentModel user = Framework.getService(UserManager.class).getUserModel(userID);
+            Framework.getService(SignatureService.class).signDocument(doc, user, keyPassword, reason, pdfa,
+                    disposition, archiveFilename);
+            session.saveDocument(doc);
+            notifySigned(doc);
+            putStatusAfterCompletion(getId(), getOriginatingUsername());
+        } catch (SignException e) {
+            log.debug("Cannot sign document " + docId + ": " + e.getMessage(), e);
+            putStatus(getId(), getOriginatingUsername(), State.FAILED, e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            putStatus(getId(), getOriginatingUsername(), State.FAILED, e.getMessage());
+            throw e;
+        } finally {
+            keyPassword = null;
+        }
+        setStatus("Done");
+    }
+
+    /**
+     * Records the outcome of the signature once the transaction saving the document completes, so that pollers never
+     * see it signed before the signed document is visible, or if it is rolled back.
+     */
+    protected static void putStatusAfterCompletion(String signingId, String username) {
+        if (!TransactionHelper.isTransactionActiveOrMarkedRollback()) {
+            putStatus(signingId, username, State.SIGNED, null);
+            return;
+        }
+        TransactionHelper.registerSynchronization(new Synchronization() {
+
+            @Override
+            public void beforeCompletion() {
+                // nothing to do
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    putStatus(signingId, username, State.SIGNED, null);
+                } else {
+                    putStatus(signingId, username, State.FAILED, "The signed document could not be saved");
+                }
+            }
+        });
+    }
+
+    protected void notifySigned(DocumentModel doc) {
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(DocumentEventContext.COMMENT_PROPERTY_KEY, DOCUMENT_SIGNED_COMMENT);
+        properties.put(DocumentEventContext.CATEGORY_PROPERTY_KEY, DocumentEventCategories.EVENT_DOCUMENT_CATEGORY);
+        DocumentEventContext eventContext = new DocumentEventContext(session, session.getPrincipal(), doc);
+        eventContext.setProperties(properties);
+        Framework.getService(EventProducer.class).fireEvent(eventContext.newEvent(DOCUMENT_SIGNED));
+    }
+
+    protected static KeyValueStore getStatusStore() {
+        return Framework.getService(KeyValueService.class).getKeyValueStore(STATUS_STORE_NAME);
+    }
+
+    /**
+     * Records the progress of a signature, along with the user who requested it.
+     */
+    public static void putStatus(String signingId, String username, State state, String message) {
+        String value = message == null ? state.name() : state.name() + STATUS_SEP + message;
+        KeyValueStore store = getStatusStore();
+        store.put(signingId, value, STATUS_TTL);
+        store.put(signingId + STATUS_USERNAME_SUFFIX, username, STATUS_TTL);
+    }
+
+    /**
+     * Gets the progress of a signature.
+     */
+    public static AsyncSigningStatus getStatus(String signingId) {
+        KeyValueStore store = getStatusStore();
+        String value = store.getString(signingId);
+        if (value == null) {
+            return new AsyncSigningStatus(State.UNKNOWN, null);
+        }
+        String username = store.getString(signingId + STATUS_USERNAME_SUFFIX);
+        int i = value.indexOf(STATUS_SEP);
+        if (i < 0) {
+            return new AsyncSigningStatus(State.valueOf(value), null, username);
+        }
+        return new AsyncSigningStatus(State.valueOf(value.substring(0, i)), value.substring(i + 1), username);
+    }
+
+}
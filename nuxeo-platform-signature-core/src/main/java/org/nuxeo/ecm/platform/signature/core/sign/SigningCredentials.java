@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+
+/**
+ * The unlocked key and certificate of a signing user, obtained once and reused for several signatures.
+ *
+ * @since 10.2
+ */
+public class SigningCredentials {
+
+    protected final String userID;
+
+    protected final X509Certificate certificate;
+
+    protected final KeyPair keyPair;
+
+    public SigningCredentials(String userID, X509Certificate certificate, KeyPair keyPair) {
+        this.userID = userID;
+        this.certificate = certificate;
+        this.keyPair = keyPair;
+    }
+
+    public String getUserID() {
+        return userID;
+    }
+
+    public X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    public KeyPair getKeyPair() {
+        return keyPair;
+    }
+
+}
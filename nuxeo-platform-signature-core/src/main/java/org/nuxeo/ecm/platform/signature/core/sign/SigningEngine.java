@@ -0,0 +1,159 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.platform.signature.api.exception.SignException;
+
+/**
+ * Signs the documents of a batch in parallel on a bounded pool of worker threads.
+ * <p>
+ * The work queue is bounded: when it is full the submitting thread signs the next document itself, which slows down
+ * submission instead of piling up documents in memory. Once the workers are shut down tasks are rejected with a
+ * {@link RejectedExecutionException} instead. Each document is signed in its own task, so parsed PDFs, stampers and
+ * output files are never shared between threads. Results are returned in submission order.
+ *
+ * @since 10.2
+ */
+public class SigningEngine {
+
+    private static final Log log = LogFactory.getLog(SigningEngine.class);
+
+    protected final ThreadPoolExecutor executor;
+
+    public SigningEngine(int threads, int queueSize) {
+        this("Nuxeo-Signature", threads, queueSize);
+    }
+
+    /**
+     * @since 10.2
+     */
+    public SigningEngine(String threadNamePrefix, int threads, int queueSize) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), threadFactory, new CallerRunsUnlessShutdownPolicy());
+    }
+
+    /**
+     * Runs the rejected task in the submitting thread when the queue is full, but fails it once the workers are shut
+     * down: {@link ThreadPoolExecutor.CallerRunsPolicy} would silently discard it and leave its future never completed.
+     *
+     * @since 10.2
+     */
+    protected static class CallerRunsUnlessShutdownPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Signature workers are shut down");
+            }
+            task.run();
+        }
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Gets the executor of the workers, running tasks in the calling thread when its queue is full and rejecting them
+     * once shut down.
+     *
+     * @since 10.2
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Runs independent tasks, which must report their failures in their result.
+     *
+     * @return the results, in the order of the tasks
+     * @since 10.2
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (tasks.size() <= 1 || getThreads() <= 1) {
+            for (Callable<T> task : tasks) {
+                results.add(call(task));
+            }
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new NuxeoException("Interrupted while running signature tasks", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new SignException(e.getCause());
+        }
+        return results;
+    }
+
+    protected static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SignException(e);
+        }
+    }
+
+    /**
+     * Stops the workers, waiting for the running signatures to finish.
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout, unit)) {
+            log.warn("Signature workers did not terminate in time");
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.sign;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.platform.signature.api.exception.SignException;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SignatureResult;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * Signs batches of documents in two stages running on separate pools: a preparation stage, which detects the signing
+ * status and converts non-PDF documents, feeding a signing stage.
+ * <p>
+ * Each pool has its own bounded queue. When the signing queue is full the preparation thread signs the document
+ * itself, and when the preparation queue is full the submitting thread prepares it, so that a slow stage throttles the
+ * previous one instead of piling up documents in memory. Each stage task runs in a transaction of its own, so that it
+ * can read the documents through their session and the blob stores from the pool threads, which have none; a task run
+ * by a throttled thread uses the transaction of that thread. Documents submitted while the pools are shut down are
+ * reported as failed. The time spent in each stage is recorded by {@link SignatureMetrics#PIPELINE_PREPARE} and
+ * {@link SignatureMetrics#PIPELINE_SIGN}, whose rates give the throughput of each stage.
+ *
+ * @since 10.2
+ */
+public class SigningPipeline {
+
+    private static final Log log = LogFactory.getLog(SigningPipeline.class);
+
+    protected final SigningEngine preparationEngine;
+
+    protected final SigningEngine signingEngine;
+
+    public SigningPipeline(SigningEngine preparationEngine, SigningEngine signingEngine) {
+        this.preparationEngine = preparationEngine;
+        this.signingEngine = signingEngine;
+    }
+
+    /**
+     * Signs the documents.
+     *
+     * @param prepare the preparation of a document, which must release what it allocated if it fails
+     * @param sign the signature of a prepared document, which must report failures in its result
+     * @return the results, in the order of the documents
+     */
+    public <T> List<SignatureResult> sign(List<DocumentModel> docs, Function<DocumentModel, T> prepare,
+            BiFunction<DocumentModel, T, SignatureResult> sign) {
+        long start = System.nanoTime();
+        List<CompletableFuture<SignatureResult>> futures = new ArrayList<>(docs.size());
+        for (DocumentModel doc : docs) {
+            CompletableFuture<SignatureResult> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> prepare(doc, prepare), preparationEngine.getExecutor())
+                                          .thenApplyAsync(prepared -> sign(doc, prepared, sign),
+                                                  signingEngine.getExecutor())
+                                          .exceptionally(e -> failed(doc, e));
+            } catch (RejectedExecutionException e) {
+                // the pools are shut down, a rejected signing stage completes exceptionally by itself
+                future = CompletableFuture.completedFuture(failed(doc, e));
+            }
+            futures.add(future);
+        }
+        List<SignatureResult> results = new ArrayList<>(docs.size());
+        try {
+            for (CompletableFuture<SignatureResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new NuxeoException("Interrupted while signing documents", e);
+        } catch (ExecutionException e) {
+            // failures are reported in the results
+            throw new NuxeoException(e.getCause());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Signed %d documents in %d ms (prepare: %.1f docs/s, sign: %.1f docs/s)",
+                    docs.size(), (System.nanoTime() - start) / 1_000_000,
+                    SignatureMetrics.PIPELINE_PREPARE.getOneMinuteRate(),
+                    SignatureMetrics.PIPELINE_SIGN.getOneMinuteRate()));
+        }
+        return results;
+    }
+
+    protected <T> T prepare(DocumentModel doc, Function<DocumentModel, T> prepare) {
+        try (Timer.Context timer = SignatureMetrics.PIPELINE_PREPARE.time()) {
+            return TransactionHelper.runInTransaction(() -> prepare.apply(doc));
+        }
+    }
+
+    protected <T> SignatureResult sign(DocumentModel doc, T prepared,
+            BiFunction<DocumentModel, T, SignatureResult> sign) {
+        try (Timer.Context timer = SignatureMetrics.PIPELINE_SIGN.time()) {
+            return TransactionHelper.runInTransaction(() -> sign.apply(doc, prepared));
+        }
+    }
+
+    protected SignatureResult failed(DocumentModel doc, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        log.debug("Cannot sign document " + doc.getId(), cause);
+        SignException exception = cause instanceof SignException ? (SignException) cause : new SignException(cause);
+        SignatureMetrics.failure(exception);
+        return new SignatureResult(doc, null, exception);
+    }
+
+}
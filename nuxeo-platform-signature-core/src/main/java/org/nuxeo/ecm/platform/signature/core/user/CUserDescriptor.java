@@ -24,9 +24,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
 import org.nuxeo.common.xmap.annotation.XNode;
 import org.nuxeo.common.xmap.annotation.XObject;
 import org.nuxeo.ecm.platform.signature.api.exception.CertException;
+import org.nuxeo.ecm.platform.signature.api.pki.KeyType;
 
 /**
  * Provides default values for new user certificates.
@@ -55,6 +57,48 @@ public class CUserDescriptor {
     @XNode("organizationalUnit")
     protected String organizationalUnit;
 
+    /**
+     * Type of the keys generated for new user certificates: {@code RSA-1024} (default), {@code RSA-2048},
+     * {@code RSA-3072}, {@code EC-P256} or {@code Ed25519}.
+     *
+     * @since 10.2
+     */
+    @XNode("keyType")
+    protected String keyType;
+
+    /**
+     * Whether keystores are stored as binaries, or base64-encoded in a string limited to 8192 characters as before
+     * 10.2.
+     *
+     * @since 10.2
+     */
+    @XNode("binaryKeystore")
+    protected boolean binaryKeystore = true;
+
+    /**
+     * Whether unlocked user keys are kept in memory between signatures.
+     *
+     * @since 10.2
+     */
+    @XNode("credentialCache@enabled")
+    protected boolean credentialCacheEnabled;
+
+    /**
+     * Maximum number of users whose unlocked key is kept in memory.
+     *
+     * @since 10.2
+     */
+    @XNode("credentialCache@maxSize")
+    protected int credentialCacheMaxSize = 100;
+
+    /**
+     * Number of seconds after which an unused unlocked key is discarded.
+     *
+     * @since 10.2
+     */
+    @XNode("credentialCache@idleTimeout")
+    protected int credentialCacheIdleTimeout = 300;
+
     public String getCountryCode() {
         return countryCode;
     }
@@ -82,6 +126,32 @@ public class CUserDescriptor {
         this.organizationalUnit = organizationalUnit;
     }
 
+    /**
+     * @since 10.2
+     */
+    public KeyType getKeyType() throws CertException {
+        return StringUtils.isBlank(keyType) ? KeyType.DEFAULT : KeyType.fromId(keyType.trim());
+    }
+
+    /**
+     * @since 10.2
+     */
+    public boolean isBinaryKeystore() {
+        return binaryKeystore;
+    }
+
+    public boolean isCredentialCacheEnabled() {
+        return credentialCacheEnabled;
+    }
+
+    public int getCredentialCacheMaxSize() {
+        return credentialCacheMaxSize;
+    }
+
+    public int getCredentialCacheIdleTimeout() {
+        return credentialCacheIdleTimeout;
+    }
+
     boolean validateCountryCode(String countryCode) {
         String[] validCountryCodes = { "AF", "AX", "AL", "DZ", "AS", "AD", "AO", "AI", "AQ", "AG", "AR", "AM", "AW",
                 "AU", "AT", "AZ", "BS", "BH", "BD", "BB", "BY", "BE", "BZ", "BJ", "BM", "BT", "BO", "BQ", "BA", "BW",
@@ -20,10 +20,33 @@ package org.nuxeo.ecm.platform.signature.core.user;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.security.KeyPair;
 import java.security.KeyStore;
+import java.security.KeyStore.PrivateKeyEntry;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
@@ -34,15 +57,24 @@ import org.nuxeo.ecm.directory.Session;
 import org.nuxeo.ecm.directory.api.DirectoryService;
 import org.nuxeo.ecm.platform.signature.api.exception.CertException;
 import org.nuxeo.ecm.platform.signature.api.pki.CertService;
+import org.nuxeo.ecm.platform.signature.api.pki.KeyType;
 import org.nuxeo.ecm.platform.signature.api.pki.RootService;
 import org.nuxeo.ecm.platform.signature.api.user.AliasType;
 import org.nuxeo.ecm.platform.signature.api.user.AliasWrapper;
 import org.nuxeo.ecm.platform.signature.api.user.CNField;
 import org.nuxeo.ecm.platform.signature.api.user.CUserService;
 import org.nuxeo.ecm.platform.signature.api.user.UserInfo;
+import org.nuxeo.ecm.platform.signature.core.sign.SignatureMetrics;
+import org.nuxeo.ecm.platform.usermanager.UserManager;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.ComponentInstance;
 import org.nuxeo.runtime.model.DefaultComponent;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * Base implementation of the user certificate service.
@@ -55,6 +87,59 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
 
     private static final String CERTIFICATE_DIRECTORY_NAME = "certificate";
 
+    /**
+     * Keystore base64-encoded in a string, as stored before 10.2.
+     */
+    protected static final String KEYSTORE_STRING_PROPERTY = "cert:keystore";
+
+    /**
+     * Binary keystore.
+     *
+     * @since 10.2
+     */
+    protected static final String KEYSTORE_DATA_PROPERTY = "cert:keystoredata";
+
+    /**
+     * DER-encoded public certificate.
+     *
+     * @since 10.2
+     */
+    protected static final String PUBLIC_CERTIFICATE_PROPERTY = "cert:publiccertificate";
+
+    /**
+     * SHA-256 fingerprint of the public certificate.
+     *
+     * @since 10.2
+     */
+    protected static final String FINGERPRINT_PROPERTY = "cert:fingerprint";
+
+    /**
+     * Maximum number of public certificates kept in memory.
+     *
+     * @since 10.2
+     */
+    public static final String CERTIFICATE_CACHE_SIZE_PROP = "org.nuxeo.ecm.signature.certificate.cache.size";
+
+    protected static final long DEFAULT_CERTIFICATE_CACHE_SIZE = 1000;
+
+    /**
+     * Number of threads generating the keys of a bulk provisioning. Defaults to the number of processors.
+     *
+     * @since 10.2
+     */
+    public static final String PROVISIONING_THREADS_PROP = "org.nuxeo.ecm.signature.provisioning.threads";
+
+    /**
+     * Number of certificate directory entries written in each transaction of a bulk provisioning.
+     *
+     * @since 10.2
+     */
+    public static final String PROVISIONING_BATCH_SIZE_PROP = "org.nuxeo.ecm.signature.provisioning.batch.size";
+
+    protected static final int DEFAULT_PROVISIONING_BATCH_SIZE = 100;
+
+    protected static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
     protected RootService rootService;
 
     protected CertService certService;
@@ -74,6 +159,61 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
      */
     protected String organizationalUnit;
 
+    /**
+     * Type of the keys generated for new certificates.
+     *
+     * @since 10.2
+     */
+    protected KeyType keyType = KeyType.DEFAULT;
+
+    /**
+     * Whether keystores are stored as binaries.
+     *
+     * @since 10.2
+     */
+    protected boolean binaryKeystore = true;
+
+    /**
+     * Unlocked user keys, {@code null} unless enabled in the configuration.
+     *
+     * @since 10.2
+     */
+    protected volatile CredentialCache credentialCache;
+
+    /**
+     * Generates the keys of bulk provisionings.
+     *
+     * @since 10.2
+     */
+    protected ExecutorService provisioningExecutor;
+
+    /**
+     * Public certificates, keyed by user id. Users without certificate are kept too, as an empty value.
+     *
+     * @since 10.2
+     */
+    protected Cache<String, Optional<X509Certificate>> publicCertificates;
+
+    /**
+     * Directory entry of a user computed for a bulk provisioning, not written yet.
+     *
+     * @since 10.2
+     */
+    protected static class PendingEntry {
+
+        protected final String userID;
+
+        protected final Map<String, Object> entry;
+
+        protected final CertException exception;
+
+        protected PendingEntry(String userID, Map<String, Object> entry, CertException exception) {
+            this.userID = userID;
+            this.entry = entry;
+            this.exception = exception;
+        }
+    }
+
     @Override
     public UserInfo getUserInfo(DocumentModel userModel) throws CertException {
         UserInfo userInfo;
@@ -97,19 +237,130 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
 
     @Override
     public KeyStore getUserKeystore(String userID, String userKeystorePassword) throws CertException {
-        String keystore64Encoded = Framework.doPrivileged(() -> {
+        byte[] keystoreBytes;
+        try (Timer.Context timer = SignatureMetrics.KEYSTORE_LOOKUP.time()) {
+            keystoreBytes = Framework.doPrivileged(() -> {
+                try (Session session = getDirectoryService().open(CERTIFICATE_DIRECTORY_NAME)) {
+                    DocumentModel entry = session.getEntry(userID);
+                    if (entry != null) {
+                        return getKeystoreBytes(session, entry);
+                    } else {
+                        throw new CertException("No directory entry for " + userID);
+                    }
+                }
+            });
+        }
+        try (Timer.Context timer = SignatureMetrics.KEYSTORE_LOAD.time()) {
+            ByteArrayInputStream byteIS = new ByteArrayInputStream(keystoreBytes);
+            return getCertService().getKeyStore(byteIS, userKeystorePassword);
+        }
+    }
+
+    /**
+     * Gets the stored keystore of a directory entry, migrating it to binary storage if it is still base64-encoded.
+     *
+     * @since 10.2
+     */
+    protected byte[] getKeystoreBytes(Session session, DocumentModel entry) throws CertException {
+        byte[] keystoreBytes = readKeystoreBytes(entry);
+        if (binaryKeystore && entry.getPropertyValue(KEYSTORE_DATA_PROPERTY) == null) {
+            try {
+                migrateKeystore(session, entry, keystoreBytes);
+            } catch (DirectoryException e) {
+                // the keystore is still usable, the migration is retried on next read
+                LOG.warn("Cannot migrate keystore of " + entry.getId() + ": " + e.getMessage());
+                LOG.debug(e, e);
+            }
+        }
+        return keystoreBytes;
+    }
+
+    /**
+     * Gets the stored keystore of a directory entry, whether binary or base64-encoded, without migrating it.
+     *
+     * @since 10.2
+     */
+    protected byte[] readKeystoreBytes(DocumentModel entry) throws CertException {
+        byte[] keystoreBytes = (byte[]) entry.getPropertyValue(KEYSTORE_DATA_PROPERTY);
+        if (keystoreBytes != null) {
+            return keystoreBytes;
+        }
+        String keystore64Encoded = (String) entry.getPropertyValue(KEYSTORE_STRING_PROPERTY);
+        if (keystore64Encoded == null) {
+            throw new CertException("No keystore for " + entry.getId());
+        }
+        return Base64.decodeBase64(keystore64Encoded);
+    }
+
+    /**
+     * Moves a base64-encoded keystore to binary storage.
+     *
+     * @since 10.2
+     */
+    protected void migrateKeystore(Session session, DocumentModel entry, byte[] keystoreBytes) {
+        entry.setPropertyValue(KEYSTORE_DATA_PROPERTY, keystoreBytes);
+        entry.setPropertyValue(KEYSTORE_STRING_PROPERTY, null);
+        session.updateEntry(entry);
+        LOG.debug("Migrated keystore of " + entry.getId() + " to binary storage");
+    }
+
+    @SuppressWarnings("boxing")
+    @Override
+    public int migrateKeystores() throws CertException {
+        return Framework.doPrivileged(() -> {
             try (Session session = getDirectoryService().open(CERTIFICATE_DIRECTORY_NAME)) {
-                DocumentModel entry = session.getEntry(userID);
-                if (entry != null) {
-                    return (String) entry.getPropertyValue("cert:keystore");
-                } else {
-                    throw new CertException("No directory entry for " + userID);
+                int count = 0;
+                for (String userID : session.getProjection(Collections.emptyMap(), session.getIdField())) {
+                    DocumentModel entry = session.getEntry(userID);
+                    boolean storeCertificate = entry.getPropertyValue(PUBLIC_CERTIFICATE_PROPERTY) == null;
+                    boolean migrateKeystore = entry.getPropertyValue(KEYSTORE_DATA_PROPERTY) == null
+                            && entry.getPropertyValue(KEYSTORE_STRING_PROPERTY) != null;
+                    if (storeCertificate) {
+                        try {
+                            setPublicCertificate(entry, readPublicCertificate(entry));
+                        } catch (CertException e) {
+                            LOG.warn("Cannot read public certificate of " + userID + ": " + e.getMessage());
+                            LOG.debug(e, e);
+                            storeCertificate = false;
+                        }
+                    }
+                    if (!storeCertificate && !migrateKeystore) {
+                        continue;
+                    }
+                    if (migrateKeystore) {
+                        migrateKeystore(session, entry,
+                                Base64.decodeBase64((String) entry.getPropertyValue(KEYSTORE_STRING_PROPERTY)));
+                    } else {
+                        session.updateEntry(entry);
+                    }
+                    count++;
                 }
+                return count;
+            } catch (DirectoryException e) {
+                throw new CertException(e);
             }
         });
-        byte[] keystoreBytes = Base64.decodeBase64(keystore64Encoded);
-        ByteArrayInputStream byteIS = new ByteArrayInputStream(keystoreBytes);
-        return getCertService().getKeyStore(byteIS, userKeystorePassword);
+    }
+
+    @Override
+    public PrivateKeyEntry getUserCredential(String userID, String userKeyPassword) throws CertException {
+        CredentialCache cache = credentialCache;
+        if (cache != null) {
+            PrivateKeyEntry credential = cache.get(userID, userKeyPassword);
+            if (credential != null) {
+                return credential;
+            }
+        }
+        KeyStore keystore = getUserKeystore(userID, userKeyPassword);
+        AliasWrapper alias = new AliasWrapper(userID);
+        X509Certificate certificate = getCertService().getCertificate(keystore, alias.getId(AliasType.CERT));
+        KeyPair keyPair = getCertService().getKeyPair(keystore, alias.getId(AliasType.KEY),
+                alias.getId(AliasType.CERT), userKeyPassword);
+        PrivateKeyEntry credential = new PrivateKeyEntry(keyPair.getPrivate(), new Certificate[] { certificate });
+        if (cache != null) {
+            cache.put(userID, userKeyPassword, credential);
+        }
+        return credential;
     }
 
     @Override
@@ -120,6 +371,7 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
 
                 // create an entry in the directory
                 String userID = (String) user.getPropertyValue("user:username");
+                invalidateCredential(userID);
 
                 // make sure that no certificates are associated with the
                 // current userid
@@ -129,18 +381,7 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
                 }
 
                 LOG.info("Starting certificate generation for: " + userID);
-                Map<String, Object> map = new HashMap<>();
-                map.put("userid", userID);
-
-                // add a keystore to a directory entry
-                KeyStore keystore = getCertService().initializeUser(getUserInfo(user), userKeyPassword);
-                ByteArrayOutputStream byteOS = new ByteArrayOutputStream();
-                getCertService().storeCertificate(keystore, byteOS, userKeyPassword);
-                String keystore64Encoded = Base64.encodeBase64String(byteOS.toByteArray());
-                map.put("keystore", keystore64Encoded);
-                map.put("certificate", getUserCertInfo(keystore, user));
-                map.put("keypassword", userKeyPassword);
-                certificate = session.createEntry(map);
+                certificate = session.createEntry(createEntry(user, userKeyPassword));
                 return certificate;
             } catch (DirectoryException e) {
                 LOG.error(e);
@@ -149,6 +390,221 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
         });
     }
 
+    /**
+     * Generates the keys and certificate of a user, and computes the directory entry holding them.
+     *
+     * @since 10.2
+     */
+    protected Map<String, Object> createEntry(DocumentModel user, String userKeyPassword) throws CertException {
+        String userID = (String) user.getPropertyValue("user:username");
+        Map<String, Object> map = new HashMap<>();
+        map.put("userid", userID);
+
+        // add a keystore to a directory entry
+        KeyStore keystore = getCertService().initializeUser(getUserInfo(user), userKeyPassword, keyType);
+        ByteArrayOutputStream byteOS = new ByteArrayOutputStream();
+        getCertService().storeCertificate(keystore, byteOS, userKeyPassword);
+        if (binaryKeystore) {
+            map.put("keystoredata", byteOS.toByteArray());
+        } else {
+            map.put("keystore", Base64.encodeBase64String(byteOS.toByteArray()));
+        }
+        X509Certificate certificate = getCertService().getCertificate(keystore,
+                new AliasWrapper(userID).getId(AliasType.CERT));
+        try {
+            map.put("publiccertificate", certificate.getEncoded());
+        } catch (CertificateEncodingException e) {
+            throw new CertException(e);
+        }
+        map.put("fingerprint", getCertService().getCertificateFingerprint(certificate));
+        map.put("certificate", getUserCertInfo(keystore, user));
+        map.put("keypassword", userKeyPassword);
+        return map;
+    }
+
+    @Override
+    public List<CertificateResult> createCertificates(List<DocumentModel> users, String userKeyPassword)
+            throws CertException {
+        List<String> userIDs = new ArrayList<>(users.size());
+        for (DocumentModel user : users) {
+            userIDs.add((String) user.getPropertyValue("user:username"));
+        }
+        Set<String> existing = getExistingCertificates(userIDs);
+
+        // keys are generated in parallel, outside of any directory session
+        List<Callable<PendingEntry>> tasks = new ArrayList<>(users.size());
+        Set<String> listed = new HashSet<>();
+        for (int i = 0; i < users.size(); i++) {
+            DocumentModel user = users.get(i);
+            String userID = userIDs.get(i);
+            // a user listed twice would fail on write and roll back the whole batch
+            boolean duplicate = !listed.add(userID);
+            tasks.add(() -> {
+                if (duplicate) {
+                    return new PendingEntry(userID, null, new CertException(userID + " is listed more than once"));
+                }
+                if (existing.contains(userID)) {
+                    return new PendingEntry(userID, null, new CertException(userID + " already has a certificate"));
+                }
+                try {
+                    return new PendingEntry(userID, createEntry(user, userKeyPassword), null);
+                } catch (CertException e) {
+                    return new PendingEntry(userID, null, e);
+                } catch (RuntimeException e) {
+                    return new PendingEntry(userID, null, new CertException(e));
+                }
+            });
+        }
+        List<PendingEntry> entries = generateEntries(tasks);
+
+        // each batch is written in a transaction of its own, leaving the caller's transaction untouched
+        int batchSize = Math.max(1, Integer.parseInt(Framework.getProperty(PROVISIONING_BATCH_SIZE_PROP,
+                String.valueOf(DEFAULT_PROVISIONING_BATCH_SIZE))));
+        List<CertificateResult> results = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i += batchSize) {
+            results.addAll(writeBatch(entries.subList(i, Math.min(i + batchSize, entries.size()))));
+        }
+        return results;
+    }
+
+    /**
+     * Writes a batch of directory entries in a new transaction.
+     * <p>
+     * The results are only reported once the transaction is committed. If it rolls back, for instance because a
+     * failing entry marked it rollback-only, the entries of the batch are written again one per transaction, so that
+     * only the failing ones are reported as failed.
+     *
+     * @since 10.2
+     */
+    protected List<CertificateResult> writeBatch(List<PendingEntry> batch) {
+        List<CertificateResult> written = new ArrayList<>(batch.size());
+        AtomicBoolean committed = new AtomicBoolean();
+        try {
+            TransactionHelper.runInNewTransaction(() -> {
+                written.addAll(writeEntries(batch));
+                if (!TransactionHelper.isTransactionMarkedRollback()) {
+                    TransactionHelper.registerSynchronization(new Synchronization() {
+
+                        @Override
+                        public void beforeCompletion() {
+                            // nothing to do
+                        }
+
+                        @Override
+                        public void afterCompletion(int status) {
+                            committed.set(status == Status.STATUS_COMMITTED);
+                        }
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.debug("Cannot write the certificates of " + batch.size() + " users", e);
+        }
+        if (committed.get()) {
+            return written;
+        }
+        if (batch.size() > 1) {
+            List<CertificateResult> results = new ArrayList<>(batch.size());
+            for (PendingEntry entry : batch) {
+                results.addAll(writeBatch(Collections.singletonList(entry)));
+            }
+            return results;
+        }
+        PendingEntry entry = batch.get(0);
+        CertException exception = entry.exception;
+        if (exception == null && !written.isEmpty()) {
+            exception = written.get(0).getException();
+        }
+        if (exception == null) {
+            exception = new CertException("The certificate of " + entry.userID + " could not be saved");
+        }
+        return Collections.singletonList(new CertificateResult(entry.userID, null, exception));
+    }
+
+    /**
+     * Runs the key generation tasks of a bulk provisioning, which report their failures in their result.
+     *
+     * @return the entries, in the order of the tasks
+     * @since 10.2
+     */
+    protected List<PendingEntry> generateEntries(List<Callable<PendingEntry>> tasks) throws CertException {
+        List<PendingEntry> entries = new ArrayList<>(tasks.size());
+        try {
+            for (Future<PendingEntry> future : provisioningExecutor.invokeAll(tasks)) {
+                entries.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CertException("Interrupted while generating certificates", e);
+        } catch (ExecutionException e) {
+            throw new CertException(e.getCause());
+        }
+        return entries;
+    }
+
+    @Override
+    public List<CertificateResult> createGroupCertificates(String groupName, String userKeyPassword)
+            throws CertException {
+        UserManager userManager = Framework.getService(UserManager.class);
+        if (userManager.getGroupModel(groupName) == null) {
+            throw new CertException("No group " + groupName);
+        }
+        List<DocumentModel> users = new ArrayList<>();
+        for (String userID : userManager.getUsersInGroupAndSubGroups(groupName)) {
+            DocumentModel user = userManager.getUserModel(userID);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return createCertificates(users, userKeyPassword);
+    }
+
+    /**
+     * Gets which of the given users already have a certificate, in a single directory session.
+     *
+     * @since 10.2
+     */
+    protected Set<String> getExistingCertificates(List<String> userIDs) {
+        return Framework.doPrivileged(() -> {
+            try (Session session = getDirectoryService().open(CERTIFICATE_DIRECTORY_NAME)) {
+                Set<String> existing = new HashSet<>();
+                for (String userID : userIDs) {
+                    if (session.hasEntry(userID)) {
+                        existing.add(userID);
+                    }
+                }
+                return existing;
+            }
+        });
+    }
+
+    /**
+     * Writes a batch of directory entries in a single directory session.
+     *
+     * @since 10.2
+     */
+    protected List<CertificateResult> writeEntries(List<PendingEntry> entries) {
+        List<CertificateResult> results = new ArrayList<>(entries.size());
+        Framework.doPrivileged(() -> {
+            try (Session session = getDirectoryService().open(CERTIFICATE_DIRECTORY_NAME)) {
+                for (PendingEntry entry : entries) {
+                    if (entry.exception != null) {
+                        results.add(new CertificateResult(entry.userID, null, entry.exception));
+                        continue;
+                    }
+                    invalidateCredential(entry.userID);
+                    try {
+                        results.add(new CertificateResult(entry.userID, session.createEntry(entry.entry), null));
+                    } catch (DirectoryException e) {
+                        LOG.debug("Cannot create certificate of " + entry.userID, e);
+                        results.add(new CertificateResult(entry.userID, null, new CertException(e)));
+                    }
+                }
+            }
+        });
+        return results;
+    }
+
     protected static DirectoryService getDirectoryService() {
         return Framework.getService(DirectoryService.class);
     }
@@ -171,6 +627,65 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
         return userCertInfo;
     }
 
+    @Override
+    public X509Certificate getPublicCertificate(String userID) throws CertException {
+        Optional<X509Certificate> certificate = publicCertificates.getIfPresent(userID);
+        if (certificate == null) {
+            certificate = Optional.ofNullable(Framework.doPrivileged(() -> {
+                try (Session session = getDirectoryService().open(CERTIFICATE_DIRECTORY_NAME)) {
+                    DocumentModel entry = session.getEntry(userID);
+                    return entry == null ? null : getPublicCertificate(entry);
+                }
+            }));
+            publicCertificates.put(userID, certificate);
+        }
+        return certificate.orElse(null);
+    }
+
+    /**
+     * Gets the public certificate of a directory entry. For entries created before 10.2 and not migrated yet, it is
+     * read from the keystore, which does not require the password.
+     *
+     * @see #migrateKeystores()
+     * @since 10.2
+     */
+    protected X509Certificate getPublicCertificate(DocumentModel entry) throws CertException {
+        byte[] encoded = (byte[]) entry.getPropertyValue(PUBLIC_CERTIFICATE_PROPERTY);
+        if (encoded != null) {
+            try {
+                return (X509Certificate) CertificateFactory.getInstance("X.509")
+                                                           .generateCertificate(new ByteArrayInputStream(encoded));
+            } catch (CertificateException e) {
+                throw new CertException(e);
+            }
+        }
+        return readPublicCertificate(entry);
+    }
+
+    /**
+     * Reads the public certificate of a directory entry from its keystore.
+     *
+     * @since 10.2
+     */
+    protected X509Certificate readPublicCertificate(DocumentModel entry) throws CertException {
+        KeyStore keystore = getCertService().getKeyStore(new ByteArrayInputStream(readKeystoreBytes(entry)), null);
+        return getCertService().getCertificate(keystore, new AliasWrapper(entry.getId()).getId(AliasType.CERT));
+    }
+
+    /**
+     * Sets the public certificate and its fingerprint in a directory entry.
+     *
+     * @since 10.2
+     */
+    protected void setPublicCertificate(DocumentModel entry, X509Certificate certificate) throws CertException {
+        try {
+            entry.setPropertyValue(PUBLIC_CERTIFICATE_PROPERTY, certificate.getEncoded());
+        } catch (CertificateEncodingException e) {
+            throw new CertException(e);
+        }
+        entry.setPropertyValue(FINGERPRINT_PROPERTY, getCertService().getCertificateFingerprint(certificate));
+    }
+
     @Override
     public DocumentModel getCertificate(String userID) {
         return Framework.doPrivileged(() -> {
@@ -206,6 +721,40 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
                 assert (null == session.getEntry(userID));
             }
         });
+        invalidateCredential(userID);
+    }
+
+    /**
+     * Forgets the unlocked key and the public certificate kept in memory for a user.
+     *
+     * @since 10.2
+     */
+    protected void invalidateCredential(String userID) {
+        if (publicCertificates != null) {
+            publicCertificates.invalidate(userID);
+            if (TransactionHelper.isTransactionActive()) {
+                // other transactions may cache the previous entry until the change is committed
+                TransactionHelper.registerSynchronization(new Synchronization() {
+
+                    @Override
+                    public void beforeCompletion() {
+                        // nothing to do
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        Cache<String, Optional<X509Certificate>> cache = publicCertificates;
+                        if (cache != null) {
+                            cache.invalidate(userID);
+                        }
+                    }
+                });
+            }
+        }
+        CredentialCache cache = credentialCache;
+        if (cache != null) {
+            cache.invalidate(userID);
+        }
     }
 
     @Override
@@ -215,6 +764,54 @@ public class CUserServiceImpl extends DefaultComponent implements CUserService {
             countryCode = desc.getCountryCode();
             organization = desc.getOrganization();
             organizationalUnit = desc.getOrganizationalUnit();
+            keyType = desc.getKeyType();
+            binaryKeystore = desc.isBinaryKeystore();
+            CredentialCache previous = credentialCache;
+            credentialCache = desc.isCredentialCacheEnabled() ? new CredentialCache(
+                    desc.getCredentialCacheMaxSize(), desc.getCredentialCacheIdleTimeout()) : null;
+            if (previous != null) {
+                previous.invalidateAll();
+            }
+        }
+    }
+
+    @Override
+    public void activate(ComponentContext context) {
+        long size = Long.parseLong(
+                Framework.getProperty(CERTIFICATE_CACHE_SIZE_PROP, String.valueOf(DEFAULT_CERTIFICATE_CACHE_SIZE)));
+        publicCertificates = CacheBuilder.newBuilder().maximumSize(size).build();
+    }
+
+    @Override
+    public void start(ComponentContext context) {
+        int threads = Integer.parseInt(Framework.getProperty(PROVISIONING_THREADS_PROP,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        AtomicInteger count = new AtomicInteger();
+        provisioningExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Nuxeo-Signature-Provision-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void stop(ComponentContext context) throws InterruptedException {
+        if (provisioningExecutor != null) {
+            provisioningExecutor.shutdown();
+            if (!provisioningExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warn("Certificate provisioning workers did not terminate in time");
+                provisioningExecutor.shutdownNow();
+            }
+            provisioningExecutor = null;
+        }
+    }
+
+    @Override
+    public void deactivate(ComponentContext context) {
+        publicCertificates.invalidateAll();
+        if (credentialCache != null) {
+            credentialCache.invalidateAll();
+            credentialCache = null;
         }
     }
 
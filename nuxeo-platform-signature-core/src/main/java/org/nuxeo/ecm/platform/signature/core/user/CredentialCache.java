@@ -0,0 +1,131 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.user;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore.PrivateKeyEntry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.platform.signature.api.exception.CertException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+
+/**
+ * In-memory cache of unlocked user keys, with a maximum size and an idle timeout.
+ * <p>
+ * The key password is never stored: each entry keeps a salted hash of it, and a cached key is only returned to a
+ * caller presenting the same password. When an entry is evicted or invalidated, only its password hash is cleared: the
+ * key itself may still be used by a signature in progress, and is left to the garbage collector.
+ *
+ * @since 10.2
+ */
+public class CredentialCache {
+
+    private static final Log log = LogFactory.getLog(CredentialCache.class);
+
+    protected static final String PASSWORD_DIGEST_ALGORITHM = "SHA-256";
+
+    protected static final int SALT_LENGTH = 16;
+
+    protected static final SecureRandom RANDOM = new SecureRandom();
+
+    protected final Cache<String, Entry> cache;
+
+    protected static class Entry {
+
+        protected final PrivateKeyEntry credential;
+
+        protected final byte[] salt;
+
+        protected final byte[] passwordHash;
+
+        protected Entry(PrivateKeyEntry credential, String password) {
+            this.credential = credential;
+            salt = new byte[SALT_LENGTH];
+            RANDOM.nextBytes(salt);
+            passwordHash = hash(salt, password);
+        }
+
+        protected boolean matches(String password) {
+            return MessageDigest.isEqual(passwordHash, hash(salt, password));
+        }
+
+        protected void clear() {
+            Arrays.fill(passwordHash, (byte) 0);
+            Arrays.fill(salt, (byte) 0);
+        }
+    }
+
+    public CredentialCache(int maxSize, int idleTimeoutSeconds) {
+        cache = CacheBuilder.newBuilder()
+                            .maximumSize(maxSize)
+                            .expireAfterAccess(idleTimeoutSeconds, TimeUnit.SECONDS)
+                            .removalListener(this::onRemoval)
+                            .build();
+    }
+
+    /**
+     * Gets the cached credential of a user, or {@code null} if absent or if the password does not match.
+     */
+    public PrivateKeyEntry get(String userID, String password) {
+        Entry entry = cache.getIfPresent(userID);
+        if (entry == null || !entry.matches(password)) {
+            return null;
+        }
+        return entry.credential;
+    }
+
+    public void put(String userID, String password, PrivateKeyEntry credential) {
+        cache.put(userID, new Entry(credential, password));
+    }
+
+    public void invalidate(String userID) {
+        cache.invalidate(userID);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    protected void onRemoval(RemovalNotification<String, Entry> notification) {
+        if (log.isDebugEnabled()) {
+            log.debug("Discarding unlocked key of " + notification.getKey() + ": " + notification.getCause());
+        }
+        notification.getValue().clear();
+    }
+
+    protected static byte[] hash(byte[] salt, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(PASSWORD_DIGEST_ALGORITHM);
+            digest.update(salt);
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new CertException(e);
+        }
+    }
+
+}
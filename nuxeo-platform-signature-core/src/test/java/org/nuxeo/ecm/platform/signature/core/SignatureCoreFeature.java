@@ -30,6 +30,7 @@ import org.nuxeo.runtime.test.runner.SimpleFeature;
  */
 @Features(DirectoryFeature.class)
 @Deploy("org.nuxeo.common")
+@Deploy("org.nuxeo.runtime.kv")
 @Deploy("org.nuxeo.ecm.automation.core")
 @Deploy("org.nuxeo.ecm.platform.signature.core")
 @Deploy("org.nuxeo.ecm.platform.signature.core.test")
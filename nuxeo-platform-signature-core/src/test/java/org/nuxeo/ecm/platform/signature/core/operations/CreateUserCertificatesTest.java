@@ -0,0 +1,118 @@
+/*
+ * (C) Copyright 2018 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Florent Guillaume
+ */
+package org.nuxeo.ecm.platform.signature.core.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.automation.AutomationService;
+import org.nuxeo.ecm.automation.OperationContext;
+import org.nuxeo.ecm.automation.core.util.StringList;
+import org.nuxeo.ecm.automation.test.AutomationFeature;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.directory.Session;
+import org.nuxeo.ecm.directory.api.DirectoryService;
+import org.nuxeo.ecm.platform.signature.core.SignatureCoreFeature;
+import org.nuxeo.ecm.platform.test.PlatformFeature;
+import org.nuxeo.ecm.platform.usermanager.UserManager;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@RunWith(FeaturesRunner.class)
+@Features({ SignatureCoreFeature.class, PlatformFeature.class, AutomationFeature.class })
+public class CreateUserCertificatesTest {
+
+    protected static final String USER_KEY_PASSWORD = "abc";
+
+    protected static final String CERTIFICATE_DIRECTORY_NAME = "certificate";
+
+    protected static final String[] USER_IDS = { "hsimpsons", "msimpsons" };
+
+    @Inject
+    protected UserManager userManager;
+
+    @Inject
+    protected DirectoryService directoryService;
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected AutomationService automationService;
+
+    @Before
+    public void setUp() {
+        for (String userID : USER_IDS) {
+            DocumentModel userModel = userManager.getBareUserModel();
+            userModel.setProperty("user", "username", userID);
+            userModel.setProperty("user", "lastName", "Simpson");
+            userModel.setProperty("user", "email", userID + "@springfield.com");
+            userModel.setPathInfo("/", userID);
+            userManager.createUser(userModel);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        try (Session sqlSession = directoryService.open(CERTIFICATE_DIRECTORY_NAME)) {
+            for (String userID : USER_IDS) {
+                sqlSession.deleteEntry(userID);
+            }
+        }
+        for (String userID : USER_IDS) {
+            userManager.deleteUser(userID);
+        }
+    }
+
+    @Test
+    public void testResultsFollowInputOrder() throws Exception {
+        OperationContext ctx = new OperationContext(session);
+        Map<String, Object> params = new HashMap<>();
+        params.put("users", new StringList(Arrays.asList("hsimpsons", "nobody", "msimpsons")));
+        params.put("password", USER_KEY_PASSWORD);
+        Blob json = (Blob) automationService.run(ctx, CreateUserCertificates.ID, params);
+
+        JsonNode results = new ObjectMapper().readTree(json.getString());
+        assertEquals(3, results.size());
+        assertEquals("hsimpsons", results.get(0).get("userID").asText());
+        assertTrue(results.get(0).get("success").asBoolean());
+        // unknown users keep their position
+        assertEquals("nobody", results.get(1).get("userID").asText());
+        assertFalse(results.get(1).get("success").asBoolean());
+        assertEquals("msimpsons", results.get(2).get("userID").asText());
+        assertTrue(results.get(2).get("success").asBoolean());
+    }
+
+}
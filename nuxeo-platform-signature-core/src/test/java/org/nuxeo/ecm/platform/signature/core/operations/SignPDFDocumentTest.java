@@ -19,14 +19,18 @@
  */
 package org.nuxeo.ecm.platform.signature.core.operations;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -45,15 +49,21 @@ import org.nuxeo.ecm.core.api.CloseableCoreSession;
 import org.nuxeo.ecm.core.api.CoreInstance;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.directory.Session;
 import org.nuxeo.ecm.directory.api.DirectoryService;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.AsyncSigningStatus;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.AsyncSigningStatus.State;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SigningDisposition;
 import org.nuxeo.ecm.platform.signature.api.user.CUserService;
 import org.nuxeo.ecm.platform.signature.core.SignatureCoreFeature;
+import org.nuxeo.ecm.platform.signature.core.sign.SignatureWork;
 import org.nuxeo.ecm.platform.test.PlatformFeature;
 import org.nuxeo.ecm.platform.usermanager.UserManager;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.transaction.TransactionHelper;
 
 @RunWith(FeaturesRunner.class)
 @Features({ SignatureCoreFeature.class, PlatformFeature.class, AutomationFeature.class })
@@ -84,6 +94,9 @@ public class SignPDFDocumentTest {
     @Inject
     protected AutomationService automationService;
 
+    @Inject
+    protected WorkManager workManager;
+
     protected File origPdfFile;
 
     protected DocumentModel user;
@@ -138,6 +151,65 @@ public class SignPDFDocumentTest {
         }
     }
 
+    @Test
+    public void testSignPDFDocumentAsync() throws Exception {
+        OperationContext ctx = buildCtx(session);
+        Map<String, Object> params = buildParams();
+        DocumentModel doc = (DocumentModel) automationService.run(ctx, SignPDFDocumentAsync.ID, params);
+        String signingId = (String) ctx.get("signingId");
+        assertNotNull(signingId);
+
+        TransactionHelper.commitOrRollbackTransaction();
+        assertTrue(workManager.awaitCompletion(20, TimeUnit.SECONDS));
+        TransactionHelper.startTransaction();
+
+        params = new HashMap<>();
+        params.put("signingId", signingId);
+        Blob status = (Blob) automationService.run(new OperationContext(session), GetSigningStatus.ID, params);
+        assertTrue(status.getString(), status.getString().contains("\"state\":\"SIGNED\""));
+
+        // the signed PDF was saved as attachment of the text file
+        doc = session.getDocument(doc.getRef());
+        @SuppressWarnings("unchecked")
+        List<Map<String, Serializable>> files = (List<Map<String, Serializable>>) doc.getPropertyValue("files:files");
+        assertEquals(1, files.size());
+    }
+
+    @Test
+    public void testNotAllowedToGetSigningStatus() throws Exception {
+        SignatureWork.putStatus("someSigningId", "Administrator", State.RUNNING, null);
+        Map<String, Object> params = new HashMap<>();
+        params.put("signingId", "someSigningId");
+        try (CloseableCoreSession notAdminSession = CoreInstance.openCoreSession(session.getRepositoryName(),
+                DEFAULT_USER_ID)) {
+            automationService.run(new OperationContext(notAdminSession), GetSigningStatus.ID, params);
+            fail("should not read the status of a signature requested by another user");
+        } catch (OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Not allowed"));
+        }
+
+        SignatureWork.putStatus("someSigningId", DEFAULT_USER_ID, State.RUNNING, null);
+        try (CloseableCoreSession notAdminSession = CoreInstance.openCoreSession(session.getRepositoryName(),
+                DEFAULT_USER_ID)) {
+            Blob status = (Blob) automationService.run(new OperationContext(notAdminSession), GetSigningStatus.ID,
+                    params);
+            assertTrue(status.getString(), status.getString().contains("\"state\":\"RUNNING\""));
+        }
+    }
+
+    @Test
+    public void testSignatureWorkWithoutPassword() throws Exception {
+        DocumentModel doc = session.createDocumentModel("/", "foo", "File");
+        doc = session.createDocument(doc);
+        // as when the work was persisted and reloaded, the password is transient
+        SignatureWork work = new SignatureWork(session.getRepositoryName(), doc.getId(), "Administrator", DEFAULT_USER_ID,
+                null, "test", false, SigningDisposition.ATTACH, null);
+        work.work();
+        AsyncSigningStatus status = SignatureWork.getStatus(work.getId());
+        assertEquals(State.FAILED, status.getState());
+        assertTrue(status.getMessage(), status.getMessage().contains("password"));
+    }
+
     protected OperationContext buildCtx(CoreSession coreSession) throws IOException {
         OperationContext ctx = new OperationContext(coreSession);
         DocumentModel doc = session.createDocumentModel("File");
@@ -19,8 +19,12 @@
  */
 package org.nuxeo.ecm.platform.signature.core.pki;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -28,6 +32,8 @@ import java.io.InputStream;
 import java.security.KeyPair;
 import java.security.KeyStore;
 import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,13 +43,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.common.utils.FileUtils;
+import org.nuxeo.ecm.platform.signature.api.exception.CertException;
 import org.nuxeo.ecm.platform.signature.api.pki.CertService;
+import org.nuxeo.ecm.platform.signature.api.pki.KeyType;
 import org.nuxeo.ecm.platform.signature.api.pki.RootService;
 import org.nuxeo.ecm.platform.signature.api.user.AliasType;
 import org.nuxeo.ecm.platform.signature.api.user.AliasWrapper;
 import org.nuxeo.ecm.platform.signature.api.user.CNField;
 import org.nuxeo.ecm.platform.signature.api.user.UserInfo;
 import org.nuxeo.ecm.platform.signature.core.SignatureCoreFeature;
+import org.nuxeo.ecm.platform.signature.core.sign.SignatureMetrics;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
 
@@ -116,6 +125,64 @@ public class CertServiceTest {
         assertTrue(keystore.containsAlias(userid + "cert"));
     }
 
+    @Test
+    public void testInitializeUserKeyTypes() throws Exception {
+        String userID = getUserInfo().getUserFields().get(CNField.UserID);
+        for (KeyType keyType : Arrays.asList(KeyType.RSA_2048, KeyType.EC_P256, KeyType.ED25519)) {
+            KeyStore keystore = certService.initializeUser(getUserInfo(), USER_KEYSTORE_PASSWORD, keyType);
+            KeyPair keyPair = certService.getKeyPair(keystore, userID + "key", userID + "cert", USER_KEY_PASSWORD);
+            String keyAlgorithm = keyPair.getPrivate().getAlgorithm();
+            if (keyType == KeyType.ED25519) {
+                // the JDK provider names the recovered key by its family
+                assertTrue(keyAlgorithm, "Ed25519".equals(keyAlgorithm) || "EdDSA".equals(keyAlgorithm));
+            } else {
+                assertEquals(keyType.getKeyAlgorithm(), keyAlgorithm);
+            }
+            X509Certificate cert = certService.getCertificate(keystore, userID + "cert");
+            // the certificate is signed with the algorithm matching its key
+            cert.verify(cert.getPublicKey(), "BC");
+        }
+    }
+
+    @Test
+    public void testKeyTypeFromId() {
+        assertEquals(KeyType.EC_P256, KeyType.fromId("EC-P256"));
+        assertEquals(KeyType.ED25519, KeyType.fromId("Ed25519"));
+        try {
+            KeyType.fromId("DSA-1024");
+            fail("Should raise CertException");
+        } catch (CertException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testKeyPairPool() throws Exception {
+        CertServiceImpl certServiceImpl = (CertServiceImpl) certService;
+        KeyPairPool pool = new KeyPairPool(2, 1000, certServiceImpl::generateKeyPair);
+        try {
+            long hits = SignatureMetrics.KEYPAIR_POOL_HITS.getCount();
+            long misses = SignatureMetrics.KEYPAIR_POOL_MISSES.getCount();
+            // nothing pooled before the first request
+            assertNull(pool.take(KeyType.EC_P256));
+            assertEquals(misses + 1, SignatureMetrics.KEYPAIR_POOL_MISSES.getCount());
+
+            // the pool is refilled in the background
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (pool.getAvailable(KeyType.EC_P256) < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, pool.getAvailable(KeyType.EC_P256));
+            KeyPair keyPair = pool.take(KeyType.EC_P256);
+            assertNotNull(keyPair);
+            assertEquals("EC", keyPair.getPrivate().getAlgorithm());
+            assertEquals(hits + 1, SignatureMetrics.KEYPAIR_POOL_HITS.getCount());
+            assertNotSame(keyPair, pool.take(KeyType.EC_P256));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     protected KeyStore generateUserKeystore() {
         return certService.initializeUser(getUserInfo(), USER_KEYSTORE_PASSWORD);
     }
@@ -20,8 +20,10 @@
 package org.nuxeo.ecm.platform.signature.core.sign;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.nuxeo.ecm.platform.signature.api.sign.SignatureService.StatusWithBlob.SIGNED_CURRENT;
@@ -32,12 +34,18 @@ import static org.nuxeo.ecm.platform.signature.api.sign.SignatureService.StatusW
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.KeyStore.PrivateKeyEntry;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -50,15 +58,25 @@ import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.blob.ManagedBlob;
 import org.nuxeo.ecm.core.test.DefaultRepositoryInit;
 import org.nuxeo.ecm.core.test.annotations.Granularity;
 import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
 import org.nuxeo.ecm.directory.Session;
 import org.nuxeo.ecm.directory.api.DirectoryService;
 import org.nuxeo.ecm.platform.signature.api.exception.AlreadySignedException;
+import org.nuxeo.ecm.platform.signature.api.exception.CertException;
+import org.nuxeo.ecm.platform.signature.api.exception.SignException;
+import org.nuxeo.ecm.platform.signature.api.pki.CertService;
+import org.nuxeo.ecm.platform.signature.api.pki.KeyType;
+import org.nuxeo.ecm.platform.signature.api.sign.PreparedSignature;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureService;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SignatureVerification;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SignatureResult;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SigningDisposition;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.StatusWithBlob;
+import org.nuxeo.ecm.platform.signature.api.user.AliasType;
+import org.nuxeo.ecm.platform.signature.api.user.AliasWrapper;
 import org.nuxeo.ecm.platform.signature.api.user.CUserService;
 import org.nuxeo.ecm.platform.signature.core.SignatureCoreFeature;
 import org.nuxeo.ecm.platform.usermanager.UserManager;
@@ -66,6 +84,10 @@ import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.lowagie.text.Font;
 import com.lowagie.text.pdf.PdfReader;
 
 @RunWith(FeaturesRunner.class)
@@ -83,6 +105,9 @@ public class SignatureServiceTest {
     @Inject
     protected SignatureService signatureService;
 
+    @Inject
+    protected CertService certService;
+
     @Inject
     protected UserManager userManager;
 
@@ -195,6 +220,29 @@ public class SignatureServiceTest {
         assertEquals(Arrays.asList("Signature2", "Signature1"), names);
     }
 
+    @Test
+    public void testSignPDFWithoutFile() throws Exception {
+        Blob bytesBlob = Blobs.createBlob(Files.readAllBytes(origPdfFile.toPath()), "application/pdf");
+        assertNull(bytesBlob.getFile());
+
+        // read from a spooled copy, removed with the context
+        File spooledFile;
+        try (PDFContext context = new PDFContext(bytesBlob)) {
+            spooledFile = context.getFile();
+            assertTrue(spooledFile.exists());
+            assertSame(spooledFile, context.getFile());
+            assertNotNull(context.getReader());
+        }
+        assertFalse(spooledFile.exists());
+
+        Blob signedBlob = signatureService.signPDF(bytesBlob, null, user, USER_KEY_PASSWORD, "test reason");
+        assertEquals(Collections.singletonList("Signature1"), getSignatureNames(signedBlob));
+        Blob signedBytesBlob = Blobs.createBlob(signedBlob.getByteArray(), "application/pdf");
+        List<SignatureVerification> verifications = signatureService.verifySignatures(signedBytesBlob);
+        assertEquals(1, verifications.size());
+        assertTrue(verifications.get(0).isValid());
+    }
+
     protected List<String> getSignatureNames(Blob blob) throws IOException {
         PdfReader reader = new PdfReader(blob.getStream());
         try {
@@ -220,6 +268,230 @@ public class SignatureServiceTest {
         assertTrue(certificates.get(0).getSubjectDN().toString().contains("CN=Homer Simpson"));
     }
 
+    @Test
+    public void testGetSignerCertificates() throws Exception {
+        SignatureServiceImpl ssi = (SignatureServiceImpl) signatureService;
+        Blob signedBlob = signatureService.signPDF(Blobs.createBlob(origPdfFile), null, user, USER_KEY_PASSWORD,
+                "test reason");
+        signedBlob = signatureService.signPDF(signedBlob, null, user2, USER_KEY_PASSWORD, "test reason");
+        PdfReader reader = new PdfReader(signedBlob.getStream());
+        try {
+            // identifying the signers gives the same certificates as a full verification
+            List<X509Certificate> identified = ssi.getSignerCertificates(reader);
+            List<X509Certificate> verified = ssi.getCertificates(reader);
+            assertEquals(2, identified.size());
+            assertEquals(verified, identified);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testVerifySignatures() throws Exception {
+        // the signing time is written with a precision of one second
+        long start = System.currentTimeMillis() / 1000 * 1000;
+        Blob signedBlob = signatureService.signPDF(Blobs.createBlob(origPdfFile), null, user, USER_KEY_PASSWORD,
+                "test reason");
+        signedBlob = signatureService.signPDF(signedBlob, null, user2, USER_KEY_PASSWORD, "test reason");
+        assertEquals(Collections.emptyList(), signatureService.verifySignatures(Blobs.createBlob(origPdfFile)));
+
+        List<SignatureVerification> verifications = signatureService.verifySignatures(signedBlob);
+        assertEquals(2, verifications.size());
+        SignatureVerification last = verifications.get(0);
+        SignatureVerification first = verifications.get(1);
+        assertEquals("Signature2", last.getName());
+        assertTrue(last.isValid());
+        assertTrue(last.isCoversWholeDocument());
+        assertEquals(2, last.getRevision());
+        assertTrue(last.getCertificate().getSubjectDN().toString().contains("CN=Marge Simpson"));
+        // RSA signatures carry their signing time in the signature dictionary only
+        assertNotNull(last.getSignDate());
+        assertTrue(last.getSignDate().getTimeInMillis() >= start);
+        assertEquals("Signature1", first.getName());
+        assertTrue(first.isValid());
+        assertFalse(first.isCoversWholeDocument());
+        assertEquals(1, first.getRevision());
+        assertTrue(first.getCertificate().getSubjectDN().toString().contains("CN=Homer Simpson"));
+        assertNotNull(first.getSignDate());
+        assertTrue(first.getSignDate().getTimeInMillis() >= start);
+        assertFalse(first.getSignDate().after(last.getSignDate()));
+        assertNull(first.getError());
+    }
+
+    @Test
+    public void testSignPDFWithECKey() throws Exception {
+        KeyPair keyPair = checkSignPDFWithKeyType(KeyType.EC_P256);
+        assertEquals("EC", keyPair.getPrivate().getAlgorithm());
+    }
+
+    @Test
+    public void testSignPDFWithEd25519Key() throws Exception {
+        KeyPair keyPair = checkSignPDFWithKeyType(KeyType.ED25519);
+        assertTrue(Arrays.asList("Ed25519", "EdDSA").contains(keyPair.getPrivate().getAlgorithm()));
+    }
+
+    /**
+     * Signs a PDF with a key of the given type, then reads its signing status and verifies it.
+     */
+    protected KeyPair checkSignPDFWithKeyType(KeyType keyType) throws Exception {
+        SignatureServiceImpl ssi = (SignatureServiceImpl) signatureService;
+        KeyStore keystore = certService.initializeUser(cUserService.getUserInfo(user), USER_KEY_PASSWORD, keyType);
+        AliasWrapper alias = new AliasWrapper(DEFAULT_USER_ID);
+        KeyPair keyPair = certService.getKeyPair(keystore, alias.getId(AliasType.KEY), alias.getId(AliasType.CERT),
+                USER_KEY_PASSWORD);
+        X509Certificate certificate = certService.getCertificate(keystore, alias.getId(AliasType.CERT));
+
+        // the stamper only signs with RSA keys, other keys go through a detached CMS signature
+        SigningCredentials credentials = new SigningCredentials(DEFAULT_USER_ID, certificate, keyPair);
+        Blob signedBlob;
+        try (PDFContext context = new PDFContext(Blobs.createBlob(origPdfFile))) {
+            signedBlob = ssi.signPDF(context, null, credentials, "test reason", ssi.getSignatureAppearanceFactory());
+        }
+        assertEquals(Collections.singletonList("Signature1"), getSignatureNames(signedBlob));
+        assertEquals(Collections.singletonList(certificate), ssi.getCertificates(signedBlob));
+        assertEquals(SIGNED_CURRENT, ssi.getSigningStatus(signedBlob, user));
+        assertEquals(SIGNED_OTHER, ssi.getSigningStatus(signedBlob, user2));
+
+        List<SignatureVerification> verifications = signatureService.verifySignatures(signedBlob);
+        assertEquals(1, verifications.size());
+        SignatureVerification verification = verifications.get(0);
+        assertTrue(verification.error, verification.isValid());
+        assertEquals(certificate, verification.certificate);
+        assertNotNull(verification.signDate);
+        return keyPair;
+    }
+
+    @Test
+    public void testTwoPhaseSignature() throws Exception {
+        SignatureServiceImpl ssi = (SignatureServiceImpl) signatureService;
+        PrivateKeyEntry credential = cUserService.getUserCredential(DEFAULT_USER_ID, USER_KEY_PASSWORD);
+        X509Certificate certificate = (X509Certificate) credential.getCertificate();
+
+        // prepare, then complete with a signature computed from the digest only
+        PreparedSignature prepared = signatureService.prepareSignature(Blobs.createBlob(origPdfFile), null, user,
+                certificate, "test reason");
+        assertEquals("SHA-256", prepared.getDigestAlgorithm());
+        assertEquals(32, prepared.getDigest().length);
+        byte[] signature = CMSSigner.sign(prepared.getDigest(), credential.getPrivateKey(), certificate);
+        Blob signedBlob = signatureService.completeSignature(prepared, signature);
+        assertEquals(SIGNED_CURRENT, ssi.getSigningStatus(signedBlob, user));
+
+        // the signature verifies against the signed byte ranges
+        PdfReader reader = new PdfReader(signedBlob.getStream());
+        try {
+            assertTrue(reader.getAcroFields().verifySignature("Signature1").verify());
+            assertEquals(Collections.singletonList(certificate), ssi.getCertificates(reader));
+        } finally {
+            reader.close();
+        }
+
+        // a completed or cancelled signature cannot be completed again
+        try {
+            signatureService.completeSignature(prepared, signature);
+            fail("Should raise SignException");
+        } catch (SignException e) {
+            // ok
+        }
+        PreparedSignature cancelled = signatureService.prepareSignature(signedBlob, null, user2,
+                (X509Certificate) cUserService.getUserCredential(SECOND_USER_ID, USER_KEY_PASSWORD).getCertificate(),
+                "test reason");
+        signatureService.cancelSignature(cancelled);
+        assertNull(ssi.pendingSignatures.getIfPresent(cancelled.getId()));
+    }
+
+    @Test
+    public void testExpiredPreparedSignatureReleasesFile() throws Exception {
+        SignatureServiceImpl ssi = (SignatureServiceImpl) signatureService;
+        Cache<String, SignatureServiceImpl.PendingSignature> pendingSignatures = ssi.pendingSignatures;
+        ssi.pendingSignatures = ssi.newPendingSignatureCache(1, TimeUnit.MILLISECONDS);
+        try {
+            X509Certificate certificate = (X509Certificate) cUserService.getUserCredential(DEFAULT_USER_ID,
+                    USER_KEY_PASSWORD).getCertificate();
+            PreparedSignature prepared = signatureService.prepareSignature(Blobs.createBlob(origPdfFile), null, user,
+                    certificate, "test reason");
+            File file = ssi.pendingSignatures.asMap().get(prepared.getId()).blob.getFile();
+            assertTrue(file.exists());
+
+            // abandoned, released by the sweep without any other access
+            Thread.sleep(10);
+            ssi.cleanUpPendingSignatures();
+            assertFalse(file.exists());
+            assertEquals(0, ssi.pendingSignatures.size());
+        } finally {
+            ssi.pendingSignatures = pendingSignatures;
+        }
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        long signs = SignatureMetrics.SIGN.getCount();
+        long stamps = SignatureMetrics.STAMP.getCount();
+        long writes = SignatureMetrics.WRITE.getCount();
+        long credentials = SignatureMetrics.CREDENTIALS.getCount();
+        Counter alreadySigned = SignatureMetrics.registry.counter(
+                MetricRegistry.name("nuxeo.signature", "failures", AlreadySignedException.class.getSimpleName()));
+        long failures = alreadySigned.getCount();
+
+        Blob signedBlob = signatureService.signPDF(Blobs.createBlob(origPdfFile), null, user, USER_KEY_PASSWORD,
+                "test reason");
+        assertEquals(signs + 1, SignatureMetrics.SIGN.getCount());
+        assertEquals(stamps + 1, SignatureMetrics.STAMP.getCount());
+        assertEquals(writes + 1, SignatureMetrics.WRITE.getCount());
+        assertEquals(credentials + 1, SignatureMetrics.CREDENTIALS.getCount());
+
+        try {
+            signatureService.signPDF(signedBlob, null, user, USER_KEY_PASSWORD, "test reason");
+            fail("Should raise AlreadySignedException");
+        } catch (AlreadySignedException e) {
+            // ok
+        }
+        assertEquals(failures + 1, alreadySigned.getCount());
+    }
+
+    @Test
+    public void testSigningStatusWithUnreadableCertificate() throws Exception {
+        Blob signedBlob = signatureService.signPDF(Blobs.createBlob(origPdfFile), null, user, USER_KEY_PASSWORD,
+                "test reason");
+        SignatureMetadata metadata;
+        try (PDFContext context = new PDFContext(signedBlob)) {
+            metadata = ((SignatureServiceImpl) signatureService).getSignatureMetadata(context);
+        }
+        SignatureServiceImpl ssi = new SignatureServiceImpl() {
+            @Override
+            protected X509Certificate getPublicCertificate(String userID) {
+                throw new CertException("Unreadable certificate of " + userID);
+            }
+        };
+
+        // falls back to the email of the signer
+        String userID = (String) user.getPropertyValue("user:username");
+        String email = (String) user.getPropertyValue("user:email");
+        assertEquals(SIGNED_CURRENT, ssi.getSigningStatus(metadata, userID, email));
+        assertEquals(SIGNED_OTHER, ssi.getSigningStatus(metadata, userID, null));
+    }
+
+    @Test
+    public void testSignatureMetadataCache() throws Exception {
+        SignatureServiceImpl ssi = (SignatureServiceImpl) signatureService;
+        Blob signedBlob = Blobs.createBlob(signedPdfFile, "application/pdf");
+        signedBlob.setDigest("signed-pdf-digest");
+        ssi.metadataCache.invalidateAll();
+
+        assertEquals(SIGNED_OTHER, ssi.getSigningStatus(signedBlob, user));
+        SignatureMetadata metadata = ssi.metadataCache.getIfPresent("signed-pdf-digest");
+        assertNotNull(metadata);
+        assertEquals(1, metadata.getSignatureCount());
+
+        // second lookup is served from the cache
+        assertEquals(SIGNED_OTHER, ssi.getSigningStatus(signedBlob, user));
+        assertSame(metadata, ssi.metadataCache.getIfPresent("signed-pdf-digest"));
+
+        // blobs without digest are not cached
+        Blob origBlob = Blobs.createBlob(origPdfFile, "application/pdf");
+        assertEquals(UNSIGNED, ssi.getSigningStatus(origBlob, user));
+        assertEquals(1, ssi.metadataCache.size());
+    }
+
     @Test
     public void testGetSigningStatus() throws Exception {
         Serializable pdfBlob = (Serializable) Blobs.createBlob(origPdfFile, "application/pdf");
@@ -327,6 +599,66 @@ public class SignatureServiceTest {
         assertEquals(signedBlob, files.get(0).get("file"));
     }
 
+    @Test
+    public void testConversionCache() throws Exception {
+        SignatureServiceImpl ssi = (SignatureServiceImpl) signatureService;
+        ssi.conversionCache.invalidateAll();
+        long conversions = SignatureMetrics.CONVERSION.getCount();
+
+        // documents with the same content, signed by different users
+        DocumentModel doc1 = createFileDocument("doc1", "foo.txt");
+        DocumentModel doc2 = createFileDocument("doc2", "bar.txt");
+        Blob signedBlob1 = signatureService.signDocument(doc1, user, USER_KEY_PASSWORD, "test", false,
+                SigningDisposition.ATTACH, null);
+        Blob signedBlob2 = signatureService.signDocument(doc2, user2, USER_KEY_PASSWORD, "test", false,
+                SigningDisposition.ATTACH, null);
+
+        // converted only once
+        assertEquals(conversions + 1, SignatureMetrics.CONVERSION.getCount());
+        assertEquals(1, ssi.conversionCache.size());
+        assertEquals("bar.pdf", signedBlob2.getFilename());
+        assertEquals(Collections.singletonList("Signature1"), getSignatureNames(signedBlob1));
+        assertEquals(Collections.singletonList("Signature1"), getSignatureNames(signedBlob2));
+
+        // the cached PDF is a blob of the provider of the source
+        ManagedBlob source = (ManagedBlob) doc1.getPropertyValue("file:content");
+        ManagedBlob cached = (ManagedBlob) ssi.conversionCache.convert(source, false, b -> {
+            throw new AssertionError("Converted again");
+        });
+        assertEquals(source.getProviderId(), cached.getProviderId());
+        assertEquals(source.getProviderId() + ":" + cached.getDigest(), cached.getKey());
+
+        // PDF/A is a different conversion
+        DocumentModel doc3 = createFileDocument("doc3", "baz.txt");
+        signatureService.signDocument(doc3, user, USER_KEY_PASSWORD, "test", true, SigningDisposition.ATTACH, null);
+        assertEquals(conversions + 2, SignatureMetrics.CONVERSION.getCount());
+        assertEquals(2, ssi.conversionCache.size());
+    }
+
+    @Test
+    public void testSignDocumentWrongPasswordDoesNotConvert() throws Exception {
+        long conversions = SignatureMetrics.CONVERSION.getCount();
+        Blob txtBlob = Blobs.createBlob(helloTxtFile, "text/plain", null, "foo.txt");
+        DocumentModel doc = session.createDocumentModel("File");
+        doc.setPropertyValue("file:content", (Serializable) txtBlob);
+        try {
+            signatureService.signDocument(doc, user, "wrong password", "test", false, SigningDisposition.REPLACE,
+                    null);
+            fail("Should raise CertException");
+        } catch (CertException e) {
+            // ok
+        }
+        assertEquals(conversions, SignatureMetrics.CONVERSION.getCount());
+        assertEquals(txtBlob, doc.getPropertyValue("file:content"));
+    }
+
+    protected DocumentModel createFileDocument(String name, String filename) {
+        DocumentModel doc = session.createDocumentModel("/", name, "File");
+        Blob blob = Blobs.createBlob(helloTxtFile, "text/plain", null, filename);
+        doc.setPropertyValue("file:content", (Serializable) blob);
+        return session.createDocument(doc);
+    }
+
     @Test
     public void testSignDocumentArchive() throws Exception {
         Blob txtBlob = Blobs.createBlob(helloTxtFile, "text/plain", null, "foo.txt");
@@ -400,6 +732,130 @@ public class SignatureServiceTest {
         assertEquals("foo archive.pdf", archivedBlob.getFilename());
     }
 
+    @Test
+    public void testSignDocuments() throws Exception {
+        DocumentModel txtDoc = session.createDocumentModel("File");
+        txtDoc.setPropertyValue("file:content",
+                (Serializable) Blobs.createBlob(helloTxtFile, "text/plain", null, "foo.txt"));
+        DocumentModel pdfDoc = session.createDocumentModel("File");
+        pdfDoc.setPropertyValue("file:content",
+                (Serializable) Blobs.createBlob(origPdfFile, "application/pdf", null, "bar.pdf"));
+        // already signed by the user, fails without aborting the batch
+        DocumentModel signedDoc = session.createDocumentModel("File");
+        Blob signedBlob = signatureService.signPDF(Blobs.createBlob(origPdfFile), null, user, USER_KEY_PASSWORD,
+                "test");
+        signedBlob.setFilename("baz.pdf");
+        signedDoc.setPropertyValue("file:content", (Serializable) signedBlob);
+
+        long prepared = SignatureMetrics.PIPELINE_PREPARE.getCount();
+        long signed = SignatureMetrics.PIPELINE_SIGN.getCount();
+        List<SignatureResult> results = signatureService.signDocuments(Arrays.asList(txtDoc, signedDoc, pdfDoc),
+                user, USER_KEY_PASSWORD, "test", false, SigningDisposition.REPLACE);
+
+        // every document went through both stages
+        assertEquals(prepared + 3, SignatureMetrics.PIPELINE_PREPARE.getCount());
+        assertEquals(signed + 3, SignatureMetrics.PIPELINE_SIGN.getCount());
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("foo.pdf", results.get(0).blob.getFilename());
+        assertEquals(results.get(0).blob, txtDoc.getPropertyValue("file:content"));
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).exception instanceof AlreadySignedException);
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(Collections.singletonList("Signature1"), getSignatureNames(results.get(2).blob));
+    }
+
+    @Test
+    public void testSignStoredDocuments() throws Exception {
+        DocumentModel txtDoc = createFileDocument("txt", "foo.txt");
+        DocumentModel pdfDoc = session.createDocumentModel("/", "pdf", "File");
+        pdfDoc.setPropertyValue("file:content",
+                (Serializable) Blobs.createBlob(origPdfFile, "application/pdf", null, "bar.pdf"));
+        pdfDoc = session.createDocument(pdfDoc);
+        session.save();
+        // fetched again, their schemas are not loaded yet
+        List<DocumentModel> docs = Arrays.asList(session.getDocument(txtDoc.getRef()),
+                session.getDocument(pdfDoc.getRef()));
+
+        List<SignatureResult> results = signatureService.signDocuments(docs, user, USER_KEY_PASSWORD, "test", false,
+                SigningDisposition.REPLACE);
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        for (DocumentModel doc : docs) {
+            session.saveDocument(doc);
+        }
+        session.save();
+        DocumentModel signedDoc = session.getDocument(txtDoc.getRef());
+        Blob signedBlob = (Blob) signedDoc.getPropertyValue("file:content");
+        assertEquals("foo.pdf", signedBlob.getFilename());
+        assertEquals(Collections.singletonList("Signature1"), getSignatureNames(signedBlob));
+        assertEquals(SIGNED_CURRENT, signatureService.getSigningStatus(signedDoc, user).status);
+    }
+
+    @Test
+    public void testSigningPipelineShutdown() throws Exception {
+        SigningEngine preparationEngine = new SigningEngine(1, 1);
+        SigningEngine signingEngine = new SigningEngine(1, 1);
+        preparationEngine.shutdown(1, TimeUnit.SECONDS);
+        signingEngine.shutdown(1, TimeUnit.SECONDS);
+        SigningPipeline pipeline = new SigningPipeline(preparationEngine, signingEngine);
+        DocumentModel doc = createFileDocument("doc", "foo.txt");
+        session.save();
+        doc = session.getDocument(doc.getRef());
+
+        // rejected instead of silently discarded, which would block forever
+        List<SignatureResult> results = pipeline.sign(Collections.singletonList(doc),
+                d -> d.getPropertyValue("file:content"), (d, prepared) -> new SignatureResult(d, null, null));
+
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertEquals(doc, results.get(0).getDoc());
+    }
+
+    @Test
+    public void testSigningPipelineStoredDocuments() throws Exception {
+        SigningEngine preparationEngine = new SigningEngine(2, 1);
+        SigningEngine signingEngine = new SigningEngine(2, 1);
+        SigningPipeline pipeline = new SigningPipeline(preparationEngine, signingEngine);
+        List<DocumentModel> docs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            docs.add(createFileDocument("doc" + i, "foo" + i + ".txt"));
+        }
+        session.save();
+        // fetched again, their schemas are loaded by the stages, on the pool threads
+        List<DocumentModel> storedDocs = new ArrayList<>();
+        for (DocumentModel doc : docs) {
+            storedDocs.add(session.getDocument(doc.getRef()));
+        }
+
+        try {
+            List<SignatureResult> results = pipeline.sign(storedDocs, d -> {
+                try {
+                    return ((Blob) d.getPropertyValue("file:content")).getString();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, (d, content) -> {
+                // the stage can still use the session of the document
+                assertTrue(d.getCoreSession().exists(d.getRef()));
+                return new SignatureResult(d, Blobs.createBlob(content), null);
+            });
+
+            assertEquals(5, results.size());
+            for (int i = 0; i < 5; i++) {
+                SignatureResult result = results.get(i);
+                assertNull(String.valueOf(result.getException()), result.getException());
+                assertEquals(storedDocs.get(i), result.getDoc());
+                assertEquals(Blobs.createBlob(helloTxtFile).getString(), result.getBlob().getString());
+            }
+        } finally {
+            preparationEngine.shutdown(1, TimeUnit.SECONDS);
+            signingEngine.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
     @Test
     public void testResignDocument() throws Exception {
         Blob pdfBlob = Blobs.createBlob(signedPdfFile, "application/pdf", null, "foo.pdf");
@@ -418,6 +874,19 @@ public class SignatureServiceTest {
     @Test public void testGetDefaultSignatureAppearance() throws Exception {
         SignatureServiceImpl ssi = (SignatureServiceImpl) signatureService;
         assertNotNull(ssi.getSignatureAppearanceFactory());
+        // resolved once from the contributions
+        assertSame(ssi.getSignatureAppearanceFactory(), ssi.getSignatureAppearanceFactory());
+        assertSame(ssi.getConfiguration(), ssi.getConfiguration());
+    }
+
+    @Test
+    public void testDefaultSignatureAppearanceFont() throws Exception {
+        DefaultSignatureAppearanceFactory factory = new DefaultSignatureAppearanceFactory();
+        Font font = factory.getLayer2Font();
+        assertEquals(signatureService.getSignatureLayout().getTextSize().intValue(), (int) font.getSize());
+        // shared across signatures and factories
+        assertSame(font, factory.getLayer2Font());
+        assertSame(font, new DefaultSignatureAppearanceFactory().getLayer2Font());
     }
 
 }
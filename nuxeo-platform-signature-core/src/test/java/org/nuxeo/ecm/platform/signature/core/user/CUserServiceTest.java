@@ -20,24 +20,42 @@
 
 package org.nuxeo.ecm.platform.signature.core.user;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.security.KeyStore.PrivateKeyEntry;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
+import org.apache.commons.codec.binary.Base64;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.test.annotations.Granularity;
 import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.ecm.directory.Session;
+import org.nuxeo.ecm.directory.api.DirectoryService;
+import org.nuxeo.ecm.platform.signature.api.exception.CertException;
+import org.nuxeo.ecm.platform.signature.api.pki.CertService;
 import org.nuxeo.ecm.platform.signature.api.user.CUserService;
+import org.nuxeo.ecm.platform.signature.api.user.CUserService.CertificateResult;
 import org.nuxeo.ecm.platform.signature.core.SignatureCoreFeature;
+import org.nuxeo.ecm.platform.signature.core.user.CUserServiceImpl.PendingEntry;
 import org.nuxeo.ecm.platform.usermanager.UserManager;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.transaction.TransactionHelper;
 
 @RunWith(FeaturesRunner.class)
 @Features(SignatureCoreFeature.class)
@@ -57,6 +75,12 @@ public class CUserServiceTest {
     @Inject
     protected UserManager userManager;
 
+    @Inject
+    protected DirectoryService directoryService;
+
+    @Inject
+    protected CertService certService;
+
     protected DocumentModel user;
 
     @Before
@@ -89,4 +113,208 @@ public class CUserServiceTest {
         assertTrue(retrievedCertificate.getPropertyValue("cert:userid").equals(USER_ID));
     }
 
+    @Test
+    public void testGetUserCredential() {
+        cUserService.createCertificate(user, USER_KEYSTORE_PASSWORD);
+        PrivateKeyEntry credential = cUserService.getUserCredential(USER_ID, USER_KEYSTORE_PASSWORD);
+        assertNotNull(credential.getPrivateKey());
+        assertTrue(credential.getCertificate().toString().contains("CN=Homer Simpson"));
+        try {
+            cUserService.getUserCredential(USER_ID, "wrong password");
+            fail("Should raise CertException");
+        } catch (CertException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testCreateCertificates() {
+        cUserService.createCertificate(user, USER_KEYSTORE_PASSWORD);
+        DocumentModel user2 = createUser("msimpson", "Marge");
+        DocumentModel user3 = createUser("bsimpson", "Bart");
+
+        List<CertificateResult> results = cUserService.createCertificates(Arrays.asList(user2, user, user3),
+                USER_KEYSTORE_PASSWORD);
+        assertEquals(3, results.size());
+        assertEquals("msimpson", results.get(0).getUserID());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("msimpson", results.get(0).getCertificate().getPropertyValue("cert:userid"));
+        // already has a certificate, does not abort the others
+        assertEquals(USER_ID, results.get(1).getUserID());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+        assertTrue(cUserService.hasCertificate("bsimpson"));
+        assertNotNull(cUserService.getUserCredential("bsimpson", USER_KEYSTORE_PASSWORD).getPrivateKey());
+    }
+
+    @Test
+    public void testCreateCertificatesListedTwice() {
+        DocumentModel user2 = createUser("msimpson", "Marge");
+
+        List<CertificateResult> results = cUserService.createCertificates(Arrays.asList(user2, user, user2),
+                USER_KEYSTORE_PASSWORD);
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals("msimpson", results.get(2).getUserID());
+        assertFalse(results.get(2).isSuccess());
+        assertTrue(cUserService.hasCertificate("msimpson"));
+    }
+
+    @Test
+    public void testWriteBatchWithFailingEntry() {
+        CUserServiceImpl cUserServiceImpl = (CUserServiceImpl) cUserService;
+        DocumentModel certificate = cUserService.createCertificate(user, USER_KEYSTORE_PASSWORD);
+        String fingerprint = (String) certificate.getPropertyValue("cert:fingerprint");
+        DocumentModel user2 = createUser("msimpson", "Marge");
+        DocumentModel user3 = createUser("bsimpson", "Bart");
+        // the batch is written in a transaction of its own
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+        // as if written after the existing certificates were checked
+        Map<String, Object> duplicate = cUserServiceImpl.createEntry(user, USER_KEYSTORE_PASSWORD);
+
+        List<CertificateResult> results = cUserServiceImpl.writeBatch(Arrays.asList(
+                new PendingEntry("msimpson", cUserServiceImpl.createEntry(user2, USER_KEYSTORE_PASSWORD), null),
+                new PendingEntry(USER_ID, duplicate, null),
+                new PendingEntry("bsimpson", cUserServiceImpl.createEntry(user3, USER_KEYSTORE_PASSWORD), null)));
+
+        // only the failing entry is reported as failed, the others are saved
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(USER_ID, results.get(1).getUserID());
+        assertFalse(results.get(1).isSuccess());
+        assertNotNull(results.get(1).getException());
+        assertTrue(results.get(2).isSuccess());
+        assertTrue(cUserService.hasCertificate("msimpson"));
+        assertTrue(cUserService.hasCertificate("bsimpson"));
+        assertEquals(fingerprint, cUserService.getCertificate(USER_ID).getPropertyValue("cert:fingerprint"));
+    }
+
+    @Test
+    public void testCreateGroupCertificates() {
+        createUser("msimpson", "Marge");
+        DocumentModel group = userManager.getBareGroupModel();
+        group.setProperty("group", "groupname", "simpsons");
+        group.setProperty("group", "members", Arrays.asList(USER_ID, "msimpson"));
+        userManager.createGroup(group);
+
+        List<CertificateResult> results = cUserService.createGroupCertificates("simpsons", USER_KEYSTORE_PASSWORD);
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(CertificateResult::isSuccess));
+        assertTrue(cUserService.hasCertificate(USER_ID));
+        assertTrue(cUserService.hasCertificate("msimpson"));
+        try {
+            cUserService.createGroupCertificates("nosuchgroup", USER_KEYSTORE_PASSWORD);
+            fail("Should raise CertException");
+        } catch (CertException e) {
+            // ok
+        }
+    }
+
+    protected DocumentModel createUser(String userID, String firstName) {
+        DocumentModel userModel = userManager.getBareUserModel();
+        userModel.setProperty("user", "username", userID);
+        userModel.setProperty("user", "firstName", firstName);
+        userModel.setProperty("user", "lastName", "Simpson");
+        userModel.setProperty("user", "email", userID + "@simps.on");
+        userModel.setPathInfo("/", userID);
+        return userManager.createUser(userModel);
+    }
+
+    @Test
+    public void testBinaryKeystore() {
+        DocumentModel certificate = cUserService.createCertificate(user, USER_KEYSTORE_PASSWORD);
+        assertNotNull(certificate.getPropertyValue("cert:keystoredata"));
+        assertNull(certificate.getPropertyValue("cert:keystore"));
+    }
+
+    @Test
+    public void testKeystoreMigration() {
+        DocumentModel user2 = createUser("msimpson", "Marge");
+        cUserService.createCertificate(user, USER_KEYSTORE_PASSWORD);
+        cUserService.createCertificate(user2, USER_KEYSTORE_PASSWORD);
+        // store the keystores as before 10.2
+        try (Session session = directoryService.open("certificate")) {
+            for (String userID : Arrays.asList(USER_ID, "msimpson")) {
+                DocumentModel entry = session.getEntry(userID);
+                byte[] keystore = (byte[]) entry.getPropertyValue("cert:keystoredata");
+                entry.setPropertyValue("cert:keystore", Base64.encodeBase64String(keystore));
+                entry.setPropertyValue("cert:keystoredata", null);
+                session.updateEntry(entry);
+            }
+        }
+
+        // migrated when read
+        assertNotNull(cUserService.getUserCredential(USER_ID, USER_KEYSTORE_PASSWORD).getPrivateKey());
+        try (Session session = directoryService.open("certificate")) {
+            DocumentModel entry = session.getEntry(USER_ID);
+            assertNotNull(entry.getPropertyValue("cert:keystoredata"));
+            assertNull(entry.getPropertyValue("cert:keystore"));
+        }
+
+        // migrated in bulk
+        assertEquals(1, cUserService.migrateKeystores());
+        assertEquals(0, cUserService.migrateKeystores());
+        assertNotNull(cUserService.getUserCredential("msimpson", USER_KEYSTORE_PASSWORD).getPrivateKey());
+    }
+
+    @Test
+    public void testGetPublicCertificate() throws Exception {
+        assertNull(cUserService.getPublicCertificate(USER_ID));
+        DocumentModel certificate = cUserService.createCertificate(user, USER_KEYSTORE_PASSWORD);
+        X509Certificate publicCertificate = cUserService.getPublicCertificate(USER_ID);
+        assertEquals(cUserService.getUserCredential(USER_ID, USER_KEYSTORE_PASSWORD).getCertificate(),
+                publicCertificate);
+        assertEquals(certService.getCertificateFingerprint(publicCertificate),
+                certificate.getPropertyValue("cert:fingerprint"));
+        // kept in memory
+        assertSame(publicCertificate, cUserService.getPublicCertificate(USER_ID));
+        cUserService.deleteCertificate(USER_ID);
+        assertNull(cUserService.getPublicCertificate(USER_ID));
+    }
+
+    @Test
+    public void testGetPublicCertificateOfOldEntry() throws Exception {
+        cUserService.createCertificate(user, USER_KEYSTORE_PASSWORD);
+        // entry created before the public certificate was stored
+        try (Session session = directoryService.open("certificate")) {
+            DocumentModel entry = session.getEntry(USER_ID);
+            entry.setPropertyValue("cert:publiccertificate", null);
+            entry.setPropertyValue("cert:fingerprint", null);
+            session.updateEntry(entry);
+        }
+
+        // read from the keystore without password, without writing to the entry
+        X509Certificate publicCertificate = cUserService.getPublicCertificate(USER_ID);
+        assertTrue(publicCertificate.getSubjectDN().toString().contains("CN=Homer Simpson"));
+        try (Session session = directoryService.open("certificate")) {
+            assertNull(session.getEntry(USER_ID).getPropertyValue("cert:publiccertificate"));
+        }
+
+        // stored by the migration
+        assertEquals(1, cUserService.migrateKeystores());
+        try (Session session = directoryService.open("certificate")) {
+            DocumentModel entry = session.getEntry(USER_ID);
+            assertNotNull(entry.getPropertyValue("cert:publiccertificate"));
+            assertEquals(certService.getCertificateFingerprint(publicCertificate),
+                    entry.getPropertyValue("cert:fingerprint"));
+        }
+    }
+
+    @Test
+    public void testCredentialCache() {
+        cUserService.createCertificate(user, USER_KEYSTORE_PASSWORD);
+        PrivateKeyEntry credential = cUserService.getUserCredential(USER_ID, USER_KEYSTORE_PASSWORD);
+
+        CredentialCache cache = new CredentialCache(10, 60);
+        assertNull(cache.get(USER_ID, USER_KEYSTORE_PASSWORD));
+        cache.put(USER_ID, USER_KEYSTORE_PASSWORD, credential);
+        assertSame(credential, cache.get(USER_ID, USER_KEYSTORE_PASSWORD));
+        // another password does not unlock the cached key
+        assertNull(cache.get(USER_ID, "wrong password"));
+        cache.invalidate(USER_ID);
+        assertNull(cache.get(USER_ID, USER_KEYSTORE_PASSWORD));
+    }
+
 }
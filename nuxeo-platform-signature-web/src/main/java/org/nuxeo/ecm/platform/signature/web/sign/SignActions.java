@@ -51,6 +51,7 @@ import org.nuxeo.ecm.platform.signature.api.exception.CertException;
 import org.nuxeo.ecm.platform.signature.api.exception.SignException;
 import org.nuxeo.ecm.platform.signature.api.pki.CertService;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureService;
+import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.AsyncSigningStatus;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.SigningDisposition;
 import org.nuxeo.ecm.platform.signature.api.sign.SignatureService.StatusWithBlob;
 import org.nuxeo.ecm.platform.ui.web.api.NavigationContext;
@@ -84,6 +85,13 @@ public class SignActions implements Serializable {
      */
     public static final String SIGNATURE_DISPOSITION_NOTPDF = "org.nuxeo.ecm.signature.disposition.notpdf";
 
+    /**
+     * If this system property is set to "true", then documents are signed in the background.
+     *
+     * @since 10.2
+     */
+    public static final String SIGNATURE_ASYNC_PROP = "org.nuxeo.ecm.signature.async";
+
     public static final String SIGNATURE_ARCHIVE_FILENAME_FORMAT_PROP = "org.nuxeo.ecm.signature.archive.filename.format";
 
     /** Used with {@link SimpleDateFormat}. */
@@ -97,6 +105,8 @@ public class SignActions implements Serializable {
 
     protected static final String NOTIFICATION_SIGN_SIGNED = "notification.sign.signed";
 
+    protected static final String NOTIFICATION_SIGN_SCHEDULED = "notification.sign.scheduled";
+
     public static final String MIME_TYPE_PDF = "application/pdf";
 
     public static final String DOCUMENT_SIGNED = "documentSigned";
@@ -124,6 +134,15 @@ public class SignActions implements Serializable {
     @In(create = true)
     protected Principal currentUser;
 
+    /**
+     * The id of the signature running in the background, if any.
+     *
+     * @since 10.2
+     */
+    protected String signingId;
+
+    protected String signingFilename;
+
     protected void info(String msg) {
         facesMessages.add(INFO, getMessage(msg));
     }
@@ -175,6 +194,14 @@ public class SignActions implements Serializable {
         String filename = originalBlob.getFilename();
         String archiveFilename = getArchiveFilename(filename);
 
+        if (Framework.isBooleanPropertyTrue(SIGNATURE_ASYNC_PROP)) {
+            signingId = signatureService.signDocumentAsync(currentDoc, currentUserModel, password, signingReason, pdfa,
+                    disposition, archiveFilename);
+            signingFilename = filename;
+            facesMessages.add(INFO, filename + " " + getMessage(NOTIFICATION_SIGN_SCHEDULED));
+            return;
+        }
+
         try {
             signatureService.signDocument(currentDoc, currentUserModel, password, signingReason, pdfa, disposition,
                     archiveFilename);
@@ -201,6 +228,40 @@ public class SignActions implements Serializable {
         facesMessages.add(INFO, filename + " " + getMessage(NOTIFICATION_SIGN_SIGNED));
     }
 
+    /**
+     * Checks if a signature of the current conversation is running in the background.
+     *
+     * @since 10.2
+     */
+    public boolean isAsyncSigningPending() {
+        return signingId != null;
+    }
+
+    /**
+     * Polls the signature running in the background, refreshing the current document once it is done.
+     *
+     * @since 10.2
+     */
+    public void refreshAsyncSigning() {
+        if (signingId == null) {
+            return;
+        }
+        AsyncSigningStatus status = signatureService.getAsyncSigningStatus(signingId);
+        if (!status.isDone() && status.getState() != AsyncSigningStatus.State.UNKNOWN) {
+            return;
+        }
+        signingId = null;
+        if (status.getState() == AsyncSigningStatus.State.SIGNED) {
+            navigationContext.invalidateCurrentDocument();
+            facesMessages.add(INFO, signingFilename + " " + getMessage(NOTIFICATION_SIGN_SIGNED));
+        } else {
+            error(NOTIFICATION_SIGN_PROBLEM);
+            if (status.getMessage() != null) {
+                facesMessages.add(ERROR, status.getMessage());
+            }
+        }
+    }
+
     protected boolean getPDFA() {
         return Framework.isBooleanPropertyTrue(SIGNATURE_USE_PDFA_PROP);
     }